@@ -1,5 +1,6 @@
 plugins {
     id("io.micronaut.minimal.library") version "4.3.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.frogdevelopment.micronaut.consul"
@@ -32,9 +33,13 @@ dependencies {
     implementation("org.apache.commons:commons-lang3:${commonsLang3}")
     implementation("com.google.guava:guava:${guava}")
 
+    // metrics are registered only when micrometer is provided by the application
+    compileOnly("io.micronaut.micrometer:micronaut-micrometer-core")
+
     testCompileOnly("org.projectlombok:lombok:$lombokVersion")
 
     testImplementation("io.micronaut:micronaut-http-client")
+    testImplementation("io.micronaut.micrometer:micronaut-micrometer-core")
     testImplementation("io.micronaut.test:micronaut-test-junit5")
     testImplementation("org.assertj:assertj-core")
     testImplementation("org.mockito:mockito-junit-jupiter")
@@ -52,3 +57,13 @@ micronaut {
         annotations("com.frogdevelopment.micronaut.*")
     }
 }
+
+jmh {
+    jmhVersion.set("1.37")
+    // reporting the allocation rate next to the throughput
+    profilers.add("gc")
+    // run with ./gradlew jmh -PjmhIncludes=<regexp> to select some benchmarks
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes").toString())
+    }
+}
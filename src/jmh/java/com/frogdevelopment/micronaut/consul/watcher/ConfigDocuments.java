@@ -0,0 +1,49 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+
+/**
+ * Generates the same configuration, grouped in sections of {@value #KEYS_PER_SECTION} keys, in each supported format
+ */
+final class ConfigDocuments {
+
+    static final String KEY = "config/application";
+    static final int KEYS_PER_SECTION = 100;
+
+    private ConfigDocuments() {
+    }
+
+    static String yaml(final int keys) {
+        final var yaml = new StringBuilder();
+        for (int i = 0; i < keys; i++) {
+            if (i % KEYS_PER_SECTION == 0) {
+                yaml.append("section").append(i / KEYS_PER_SECTION).append(":\n");
+            }
+            yaml.append("  key").append(i).append(": value_").append(i).append('\n');
+        }
+        return yaml.toString();
+    }
+
+    static KeyValueList keyValues(final int keys) {
+        final var list = new ArrayList<KeyValue>(keys);
+        for (int i = 0; i < keys; i++) {
+            list.add(new KeyValue()
+                    .setKey(KEY + "/section" + (i / KEYS_PER_SECTION) + "/key" + i)
+                    .setValue("value_" + i));
+        }
+        return new KeyValueList().setList(list).setIndex(1);
+    }
+
+    static Map<String, Object> properties(final int keys) {
+        final var properties = new LinkedHashMap<String, Object>(keys);
+        for (int i = 0; i < keys; i++) {
+            properties.put("section" + (i / KEYS_PER_SECTION) + ".key" + i, "value_" + i);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,64 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.MapDifference;
+
+/**
+ * Cost of diffing two versions of a key content, one property out of {@value ConfigDocuments#KEYS_PER_SECTION} having
+ * changed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DifferenceBenchmark {
+
+    @Param({"10", "500", "10000"})
+    int keys;
+
+    private Map<String, Object> previous;
+    private Map<String, Object> next;
+    private PropertySnapshot previousSnapshot;
+
+    @Setup
+    public void setUp() {
+        previous = ConfigDocuments.properties(keys);
+        next = new LinkedHashMap<>(previous);
+        for (int i = 0; i < keys; i += ConfigDocuments.KEYS_PER_SECTION) {
+            next.put("section" + (i / ConfigDocuments.KEYS_PER_SECTION) + ".key" + i, "changed_" + i);
+        }
+        previousSnapshot = PropertySnapshot.of(previous);
+    }
+
+    @Benchmark
+    public MapDifference<String, Object> difference() {
+        return AbstractConsulKVWatcher.difference(previous, next);
+    }
+
+    /**
+     * As done by the watcher, building the next version from the previous one then diffing them by identity
+     */
+    @Benchmark
+    public MapDifference<String, Object> structuralDifference() {
+        final var nextSnapshot = PropertySnapshot.of(next, previousSnapshot);
+        return AbstractConsulKVWatcher.difference(previousSnapshot, nextSnapshot);
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of building a {@link PropertySnapshot} from a parsed content, and of looking up all its properties, compared to
+ * the {@link HashMap} it replaces.
+ * <p>
+ * The allocation reported by the gc profiler for {@link #buildFirstSnapshot()} is the footprint of a snapshot, plus an
+ * array of 8 bytes per entry used to sort them. Retained, with compressed references, a snapshot takes about 18, 26
+ * and 27 bytes per entry for 10, 500 and 10000 keys, against about 45, 41 and 39 for a {@link HashMap}, the flat
+ * open-addressed layout it replaced taking 30, 16 and 21, and a trie holding an object per entry 35, 39 and 40.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertySnapshotBenchmark {
+
+    @Param({"10", "500", "10000"})
+    int keys;
+
+    private Map<String, Object> parsed;
+    private Map<String, Object> hashMap;
+    private PropertySnapshot previous;
+    private PropertySnapshot snapshot;
+    private String[] lookups;
+
+    @Setup
+    public void setUp() {
+        parsed = ConfigDocuments.properties(keys);
+        hashMap = new HashMap<>(parsed);
+        previous = PropertySnapshot.of(parsed);
+        snapshot = PropertySnapshot.of(parsed);
+        // not the instances held by the maps, as passed by the environment
+        lookups = parsed.keySet().stream().map(String::new).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Map<String, Object> buildHashMap() {
+        return new HashMap<>(parsed);
+    }
+
+    @Benchmark
+    public Map<String, Object> buildFirstSnapshot() {
+        return PropertySnapshot.of(parsed, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> buildSnapshot() {
+        return PropertySnapshot.of(parsed, previous);
+    }
+
+    @Benchmark
+    public void lookupHashMap(final Blackhole blackhole) {
+        for (final var key : lookups) {
+            blackhole.consume(hashMap.get(key));
+        }
+    }
+
+    @Benchmark
+    public void lookupSnapshot(final Blackhole blackhole) {
+        for (final var key : lookups) {
+            blackhole.consume(snapshot.get(key));
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+
+/**
+ * Compares the cost of applying a single key change to an environment with many property sources, with each
+ * {@link PropertySourceUpdateStrategy}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertySourceUpdateBenchmark {
+
+    private static final String CONSUL_SOURCE = "consul-application";
+    private static final String KEY = "config/application";
+    private static final String CHANGED_KEY = "consul.key.0";
+    private static final int PROPERTIES_PER_SOURCE = 100;
+
+    @Param({"10", "50", "200"})
+    int propertySources;
+
+    @Param({"REBUILD", "PATCH"})
+    PropertySourceUpdateStrategy strategy;
+
+    private ApplicationContext applicationContext;
+    private Environment environment;
+    private YamlConsulKVWatcher watcher;
+    private Map<String, Object> even;
+    private Map<String, Object> odd;
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        applicationContext = ApplicationContext.run();
+        environment = applicationContext.getEnvironment();
+        for (int i = 0; i < propertySources; i++) {
+            environment.addPropertySource(PropertySource.of("source-" + i, properties("source." + i), i * 10));
+        }
+        even = properties("consul");
+        odd = new HashMap<>(even);
+        odd.put(CHANGED_KEY, "changed");
+        // in the middle of the precedence chain
+        environment.addPropertySource(PropertySource.of(CONSUL_SOURCE, even, propertySources * 5 + 1));
+
+        final var watcherConfiguration = new WatcherConfiguration();
+        watcherConfiguration.setUpdateStrategy(strategy);
+        watcher = new YamlConsulKVWatcher(environment, null, new ConsulConfiguration(), watcherConfiguration, WatcherMetrics.NOOP, null, Runnable::run);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    private static Map<String, Object> properties(final String prefix) {
+        final var properties = new HashMap<String, Object>();
+        for (int i = 0; i < PROPERTIES_PER_SOURCE; i++) {
+            properties.put(prefix + ".key." + i, "value_" + i);
+        }
+        return properties;
+    }
+
+    @Benchmark
+    public void update() {
+        final var nextProperties = (counter++ & 1) == 0 ? odd : even;
+        watcher.updatePropertySource(KEY, nextProperties, Set.of(CHANGED_KEY));
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+
+/**
+ * Parsing cost of a watched key content, by format and document size
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToPropertiesBenchmark {
+
+    @Param({"10", "500", "10000"})
+    int keys;
+
+    private YamlConsulKVWatcher yamlWatcher;
+    private NativeConsulKVWatcher nativeWatcher;
+    private KeyValue yamlDocument;
+    private KeyValueList nativeKeyValues;
+
+    @Setup
+    public void setUp() {
+        yamlWatcher = new YamlConsulKVWatcher(null, null, null, new WatcherConfiguration(), WatcherMetrics.NOOP, null, Runnable::run);
+        nativeWatcher = new NativeConsulKVWatcher(null, null, null, new WatcherConfiguration(), WatcherMetrics.NOOP, null, Runnable::run);
+        yamlDocument = new KeyValue()
+                .setKey(ConfigDocuments.KEY)
+                .setValue(ConfigDocuments.yaml(keys))
+                .setModifyIndex(1);
+        nativeKeyValues = ConfigDocuments.keyValues(keys);
+    }
+
+    @Benchmark
+    public Map<String, Object> yaml() {
+        return yamlWatcher.toProperties(ConfigDocuments.KEY, yamlDocument);
+    }
+
+    @Benchmark
+    public Map<String, Object> nativeKV() {
+        return nativeWatcher.toProperties(ConfigDocuments.KEY, nativeKeyValues);
+    }
+
+}
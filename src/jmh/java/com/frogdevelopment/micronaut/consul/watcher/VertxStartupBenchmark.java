@@ -0,0 +1,107 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+
+/**
+ * Cost of the first query of the client of the {@link WatcherEngine#VERTX} engine, ie. when the watcher starts: either
+ * creating its own vert.x instance, with {@link WatcherConfiguration#getEventLoops()} event loops, or reusing the one
+ * already started by the application.
+ * <p>
+ * Each invocation creates then closes its client, and its own instance if any, so the allocation rate reported by the
+ * gc profiler is the memory taken by each of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VertxStartupBenchmark {
+
+    // 0 for the vert.x default, only used by ownVertx
+    @Param({"0", "1"})
+    int eventLoops;
+
+    private Vertx applicationVertx;
+    private HttpServer server;
+    private ConsulClientOptions consulClientOptions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        applicationVertx = Vertx.vertx();
+        // answering right away, as Consul does for a query without index
+        server = applicationVertx.createHttpServer()
+                .requestHandler(request -> request.response().setStatusCode(404).end())
+                .listen(0)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        consulClientOptions = new ConsulClientOptions()
+                .setHost("localhost")
+                .setPort(server.actualPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        applicationVertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public long ownVertx() throws Exception {
+        // without vert.x provided by the application
+        final var created = new AtomicReference<Vertx>();
+        final var client = new VertxConsulKVClient(() -> {
+            created.set(vertx());
+            return created.get();
+        }, false, consulClientOptions);
+        final var index = firstQuery(client);
+        client.close();
+        // as done by the client owning it, but waiting for it
+        created.get().close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        return index;
+    }
+
+    @Benchmark
+    public long applicationVertx() throws Exception {
+        final var client = new VertxConsulKVClient(applicationVertx, consulClientOptions);
+        final var index = firstQuery(client);
+        client.close();
+        return index;
+    }
+
+    private static long firstQuery(final VertxConsulKVClient client) throws Exception {
+        return client.getValue("config/application", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS)
+                .index();
+    }
+
+    private Vertx vertx() {
+        final var options = new VertxOptions();
+        if (eventLoops > 0) {
+            options.setEventLoopPoolSize(eventLoops);
+        }
+        return Vertx.vertx(options);
+    }
+
+}
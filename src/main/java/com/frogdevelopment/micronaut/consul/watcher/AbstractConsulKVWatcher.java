@@ -2,34 +2,57 @@ package com.frogdevelopment.micronaut.consul.watcher;
 
 import static io.micronaut.context.env.Environment.DEFAULT_NAME;
 import static io.micronaut.discovery.config.ConfigDiscoveryConfiguration.DEFAULT_PATH;
+import static io.micronaut.discovery.consul.client.v1.ConsulClient.SERVICE_ID;
 
 import lombok.RequiredArgsConstructor;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
 
+import com.frogdevelopment.micronaut.consul.watcher.WatcherMetrics.Stage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
 import io.micronaut.context.env.Environment;
 import io.micronaut.context.env.PropertySource;
 import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.discovery.config.ConfigurationClient;
 import io.micronaut.discovery.consul.ConsulConfiguration;
-import io.micronaut.discovery.consul.client.v1.ConsulClient;
 import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
 import io.vertx.ext.consul.Watch;
 import io.vertx.ext.consul.WatchResult;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
 @RequiredArgsConstructor
 abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
@@ -37,12 +60,63 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
     private final Environment environment;
     private final ApplicationEventPublisher<RefreshEvent> eventPublisher;
     private final ConsulConfiguration consulConfiguration;
-    private final Vertx vertx;
-    private final ConsulClientOptions consulClientOptions;
-
-    protected final Map<String, Watch<V>> watchers = new HashMap<>();
+    private final WatcherConfiguration watcherConfiguration;
+    private final WatcherMetrics watcherMetrics;
+    private final ConsulKVClient consulKVClient;
+    private final Executor executor;
+
+    protected static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final long NO_TIMER = -1;
+    private static final String ALL_KEYS = "*";
+
+    protected final Map<String, Watch<?>> watchers = new ConcurrentHashMap<>();
+    // all the keys currently watched, either on their own or through the multiplexed watch
+    private final Set<String> watchedKeys = ConcurrentHashMap.newKeySet();
+    // keys whose first result is diffed against their property source, even once their snapshot got evicted
+    private final Set<String> seededKeys = ConcurrentHashMap.newKeySet();
+    // keys added at runtime, watched again on restart
+    private final Set<String> addedKeys = ConcurrentHashMap.newKeySet();
+    // generation of the watch currently registered for each key, the results of the previous watches being ignored
+    private final Map<String, Long> watchGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong lastWatchGeneration = new AtomicLong();
+    private final LongAdder shortCircuitedEvents = new LongAdder();
+
+    // guards the updates of the environment, shared by all the keys
+    private final Object propertySourcesLock = new Object();
+    private final Map<String, PendingUpdate> pendingUpdates = new LinkedHashMap<>();
+    private final Map<String, Object> pendingChanges = new HashMap<>();
+    private final List<ConfigChange> pendingConfigChanges = new ArrayList<>();
+    // subscribers buffer on their own, see changes()
+    private final Sinks.Many<ConfigChange> configChanges = Sinks.many().multicast().directBestEffort();
+    private long flushTimerId = NO_TIMER;
+
+    // set on start, read by the watches added at runtime
+    private volatile Cache<String, Snapshot> snapshots;
+    private volatile KeyedSerialExecutor dispatcher;
+    private volatile ConsulKVWatch.Options watchOptions;
+    private volatile boolean isStarted;
+    // null when no snapshot path is configured
+    private volatile SnapshotStore snapshotStore;
+
+    /**
+     * Last applied content of a watched key
+     *
+     * @param modifyIndex Consul index of the content, 0 when unknown
+     * @param hash        hash of the content, to detect the events not changing it, null when unknown
+     * @param properties  the content parsed by {@link #toProperties}
+     */
+    private record Snapshot(long modifyIndex, @Nullable HashCode hash, Map<String, Object> properties) {
+    }
 
-    private boolean isStarted;
+    /**
+     * Update of a property source waiting for the end of the debounce window
+     *
+     * @param properties  last content of the key
+     * @param changedKeys all the keys changed since the beginning of the window
+     * @param index       Consul index of the last content
+     */
+    private record PendingUpdate(Map<String, Object> properties, Set<String> changedKeys, long index) {
+    }
 
     protected abstract Logger getLogger();
 
@@ -50,28 +124,190 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
     public synchronized void start() {
         if (!isStarted) {
             getLogger().info("Monitoring Consul changes");
+            snapshots = Caffeine.newBuilder()
+                    .maximumSize(watcherConfiguration.getMaxSnapshots())
+                    // evicting in the calling thread, a cheap maintenance
+                    .executor(Runnable::run)
+                    .build();
+            dispatcher = new KeyedSerialExecutor(executor);
+            watchOptions = ConsulKVWatch.Options.of(watcherConfiguration, watcherMetrics);
+            final var snapshotPath = watcherConfiguration.getSnapshotPath();
+            snapshotStore = snapshotPath != null ? new SnapshotStore(Path.of(snapshotPath)) : null;
             final var applicationName = consulConfiguration.getServiceId().orElseThrow();
             final var configurationPath = getConfigurationPath();
 
+            final var keys = new ArrayList<String>();
+
             // Configuration shared by all applications
             final var commonConfigPath = configurationPath + DEFAULT_NAME;
-            addKeyWatcher(commonConfigPath);
+            keys.add(commonConfigPath);
 
             // Application-specific configuration
             final var applicationSpecificPath = configurationPath + applicationName;
-            addKeyWatcher(applicationSpecificPath);
+            keys.add(applicationSpecificPath);
 
             for (final var activeName : environment.getActiveNames()) {
                 // Configuration shared by all applications by active environments
-                addKeyWatcher(toProfiledPath(commonConfigPath, activeName));
+                keys.add(toProfiledPath(commonConfigPath, activeName));
                 // Application-specific configuration by active environments
-                addKeyWatcher(toProfiledPath(applicationSpecificPath, activeName));
+                keys.add(toProfiledPath(applicationSpecificPath, activeName));
             }
 
+            // added at runtime before a restart
+            final var otherKeys = addedKeys.stream()
+                    .filter(key -> !keys.contains(key))
+                    .toList();
+
+            watchedKeys.addAll(keys);
+            watchedKeys.addAll(otherKeys);
+            consulKVClient.reserveConnections((watcherConfiguration.isMultiplexed() ? 1 : keys.size()) + otherKeys.size());
+            notifyWatchedKeys();
+            if (environment.getProperty(ConfigurationClient.ENABLED, Boolean.class).orElse(false)) {
+                seedSnapshots(keys);
+            }
+            seedSnapshots(otherKeys);
             isStarted = true;
+            if (watcherConfiguration.isMultiplexed()) {
+                addMultiplexedWatcher(configurationPath, keys);
+            } else {
+                keys.forEach(this::addKeyWatcher);
+            }
+            otherKeys.forEach(this::addKeyWatcher);
+        }
+    }
+
+    /**
+     * Watches the key on its own, without restarting the other watches, even when {@link WatcherConfiguration#isMultiplexed()}.
+     * Its content is diffed against the one of its property source if any, or else is added as a new property source,
+     * with a higher precedence than the ones read from Consul at bootstrap. The key is watched again after a restart.
+     *
+     * @param key full path of the key in the KV store, ie. {@code config/tenant-a}
+     * @return false when the key was already watched
+     */
+    @Override
+    public boolean addWatch(@Nonnull final String key) {
+        if (!isStarted) {
+            return addedKeys.add(key);
+        }
+        if (!watchedKeys.add(key)) {
+            return false;
+        }
+        addedKeys.add(key);
+        notifyWatchedKeys();
+        seedSnapshots(List.of(key));
+        consulKVClient.reserveConnections(watchers.size() + 1);
+        addKeyWatcher(key);
+        // stopped meanwhile, the new watch might have been missed by stop()
+        if (!isStarted) {
+            stopWatcher(key);
+        }
+        return true;
+    }
+
+    /**
+     * Stops watching the key, without restarting the other watches. All its properties are removed from the
+     * environment, leaving its property source empty.
+     *
+     * @param key full path of the key in the KV store
+     * @return false when the key was not watched
+     */
+    @Override
+    public boolean removeWatch(@Nonnull final String key) {
+        final var added = addedKeys.remove(key);
+        if (!isStarted) {
+            return added;
+        }
+        if (!watchedKeys.remove(key)) {
+            return false;
+        }
+        notifyWatchedKeys();
+        // when multiplexed, the events of the root watch are now ignored for the key
+        stopWatcher(key);
+        dispatch(key, () -> clearProperties(key));
+        return true;
+    }
+
+    private void stopWatcher(final String key) {
+        watchGenerations.remove(key);
+        final var watcher = watchers.remove(key);
+        if (watcher != null) {
+            getLogger().debug("Stop watching [{}]", key);
+            watcher.stop();
+        }
+    }
+
+    private void notifyWatchedKeys() {
+        // keeping the last notified keys consistent when called concurrently
+        synchronized (watchedKeys) {
+            onWatchedKeys(List.copyOf(watchedKeys));
+        }
+    }
+
+    private void clearProperties(final String key) {
+        final var snapshot = snapshots.getIfPresent(key);
+        snapshots.invalidate(key);
+        seededKeys.remove(key);
+        final var previousProperties = snapshot != null ? snapshot.properties() : readPropertySource(key);
+        final Map<String, Object> nextProperties = PropertySnapshot.EMPTY;
+        final var difference = difference(previousProperties, nextProperties);
+        if (!difference.areEqual()) {
+            watcherMetrics.eventChanged(key);
+            applyChanges(key, nextProperties, difference, 0);
+        }
+        final var store = snapshotStore;
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * Seeds the snapshots with the configuration read at bootstrap by the configuration client, so that the first
+     * result of each watch is diffed against it, instead of being discarded, and a change made between the bootstrap
+     * and the start of the watch is not lost.
+     * <p>
+     * The bootstrap read from Consul does not expose the Consul index, so the first query of each watch is then a
+     * non-blocking one, whose result is only parsed when its content differs from the seeded one. When booted from the
+     * {@link SnapshotStore}, the first query blocks from the saved index instead.
+     */
+    private void seedSnapshots(final List<String> keys) {
+        final var store = snapshotStore;
+        for (final var key : keys) {
+            final var properties = readPropertySource(key);
+            // the saved index only applies to the saved content, not to a newer one read from Consul, nor to a missing
+            // property source
+            final var index = store == null ? 0 : store.get(key)
+                    .filter(entry -> !properties.isEmpty() && entry.properties().equals(properties))
+                    .map(SnapshotStore.Entry::index)
+                    .orElse(0L);
+            getLogger().debug("Seeding [{}] with {} properties of its property source, at index {}", key, properties.size(), index);
+            snapshots.put(key, new Snapshot(index, null, properties));
+            seededKeys.add(key);
         }
     }
 
+    /**
+     * @return the current properties of the property source of the key, empty when there is none, ie. when the key did
+     * not exist at bootstrap
+     */
+    private Map<String, Object> readPropertySource(final String key) {
+        final var properties = new LinkedHashMap<String, Object>();
+        findPropertySource(toPropertySourceName(key)).ifPresent(propertySource -> {
+            for (final var name : propertySource) {
+                properties.put(name, propertySource.get(name));
+            }
+        });
+        return PropertySnapshot.of(properties);
+    }
+
+    private Optional<PropertySource> findPropertySource(final String propertySourceName) {
+        for (final var propertySource : environment.getPropertySources()) {
+            if (propertySource.getName().equals(propertySourceName)) {
+                return Optional.of(propertySource);
+            }
+        }
+        return Optional.empty();
+    }
+
     private String getConfigurationPath() {
         return consulConfiguration.getConfiguration().getPath()
                 .map(path -> {
@@ -90,24 +326,179 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
 
     private void addKeyWatcher(final String key) {
         getLogger().debug("Watching [{}] in the KV store ", key);
-        this.watchers.put(key, getWatcher(key, vertx, consulClientOptions)
-                .setHandler(handle(key))
+        this.watchers.put(key, getWatcher(key, consulKVClient, watchOptions.startingAt(knownIndex(key)))
+                .setHandler(handle(key, registerWatch(key)))
+                .start());
+    }
+
+    /**
+     * @return the index of the content of the key applied to the environment, 0 when unknown
+     */
+    private long knownIndex(final String key) {
+        final var snapshot = snapshots.getIfPresent(key);
+        return snapshot == null ? 0 : snapshot.modifyIndex();
+    }
+
+    /**
+     * Called once all the watched keys are known, before starting to watch them
+     */
+    protected void onWatchedKeys(@Nonnull final List<String> keys) {
+    }
+
+    /**
+     * @param consulKVClient client shared by all the watches
+     * @param options      blocking query and retry settings of the watch
+     */
+    protected abstract Watch<V> getWatcher(final String key, ConsulKVClient consulKVClient, ConsulKVWatch.Options options);
+
+    private void addMultiplexedWatcher(final String configurationPath, final List<String> keys) {
+        getLogger().debug("Watching {} through a single blocking query on [{}] in the KV store", keys, configurationPath);
+        final var generations = new LinkedHashMap<String, Long>();
+        keys.forEach(key -> generations.put(key, registerWatch(key)));
+        // blocking only when the content of every key is known, from the highest index as any later write is above it
+        var initialIndex = 0L;
+        for (final var key : keys) {
+            final var index = knownIndex(key);
+            if (index == 0) {
+                initialIndex = 0;
+                break;
+            }
+            initialIndex = Math.max(initialIndex, index);
+        }
+        this.watchers.put(configurationPath, getPrefixWatcher(configurationPath, consulKVClient, watchOptions.startingAt(initialIndex))
+                .setHandler(demultiplex(configurationPath, generations))
                 .start());
     }
 
-    protected abstract Watch<V> getWatcher(final String key, Vertx vertx, ConsulClientOptions consulClientOptions);
+    Watch<KeyValueList> getPrefixWatcher(final String keyPrefix, final ConsulKVClient consulKVClient,
+            final ConsulKVWatch.Options options) {
+        return ConsulKVWatch.keyPrefix(keyPrefix, consulKVClient, options);
+    }
+
+    /**
+     * @param path full path of a KV under the configuration root
+     * @return the key whose content includes the KV, {@code null} if none
+     */
+    @Nullable
+    protected abstract String findOwner(@Nonnull final String path);
+
+    /**
+     * Builds the value of the given key from its KV in the whole content of the configuration root.
+     *
+     * @param key       watched key
+     * @param keyValues KV of the configuration root owned by the key, see {@link #findOwner(String)}, {@code null} when
+     *                  the configuration root does not exist
+     * @param index     Consul index of the content of the configuration root
+     * @return the value as it would have been returned by a watcher on the key itself
+     */
+    @Nullable
+    protected abstract V extract(final String key, @Nullable final List<KeyValue> keyValues, final long index);
+
+    /**
+     * @return the generation of the new watch of the key, replacing the previous one
+     */
+    private long registerWatch(final String key) {
+        final var generation = lastWatchGeneration.incrementAndGet();
+        watchGenerations.put(key, generation);
+        return generation;
+    }
 
-    private Handler<WatchResult<V>> handle(final String key) {
+    private boolean isCurrentWatch(final String key, final long generation) {
+        final var current = watchGenerations.get(key);
+        return current != null && current == generation;
+    }
+
+    private Handler<WatchResult<KeyValueList>> demultiplex(final String configurationPath, final Map<String, Long> generations) {
         return event -> {
             if (event.succeeded()) {
                 // prevResult is null on the watcher registering return
                 // and nextResult contains the current data
-                if (event.prevResult() != null) {
-                    try {
-                        handleChanges(key, event.prevResult(), event.nextResult());
-                    } catch (final Exception e) {
-                        onError(key, e);
+                final var previousGroups = groupByOwner(generations.keySet(), event.prevResult());
+                final var nextGroups = groupByOwner(generations.keySet(), event.nextResult());
+                final var nextIndex = event.nextResult() == null ? 0 : event.nextResult().getIndex();
+                generations.forEach((key, generation) -> {
+                    if (!isCurrentWatch(key, generation)) {
+                        // removed at runtime, or watched on its own since
+                        return;
+                    }
+                    final var next = nextGroups == null ? null : nextGroups.get(key);
+                    if (event.prevResult() != null) {
+                        final var previous = previousGroups == null ? null : previousGroups.get(key);
+                        if (isSameContent(previous, next)) {
+                            // the change is on another key
+                            return;
+                        }
+                        watcherMetrics.eventReceived(key);
+                        final var previousIndex = event.prevResult().getIndex();
+                        dispatch(key, generation, () -> handleChanges(key, extract(key, previous, previousIndex), extract(key, next, nextIndex)));
+                    } else if (isSeeded(key)) {
+                        watcherMetrics.eventReceived(key);
+                        dispatch(key, generation, () -> handleChanges(key, null, extract(key, next, nextIndex)));
                     }
+                });
+            } else {
+                onError(configurationPath, event.cause());
+            }
+        };
+    }
+
+    /**
+     * Splits the content of the configuration root by watched key, in a single pass over its KV.
+     *
+     * @return the KV owned by each of the keys, empty when none, or {@code null} when the configuration root does not
+     * exist
+     */
+    @Nullable
+    private Map<String, List<KeyValue>> groupByOwner(final Set<String> keys, @Nullable final KeyValueList keyValues) {
+        if (keyValues == null || !keyValues.isPresent()) {
+            return null;
+        }
+        final var groups = new HashMap<String, List<KeyValue>>();
+        keys.forEach(key -> groups.put(key, new ArrayList<>()));
+        for (final var keyValue : keyValues.getList()) {
+            final var owner = findOwner(keyValue.getKey());
+            final var group = owner == null ? null : groups.get(owner);
+            if (group != null) {
+                group.add(keyValue);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * @return whether both contents hold the same KV, at the same index and with the same value
+     */
+    private static boolean isSameContent(@Nullable final List<KeyValue> previous, @Nullable final List<KeyValue> next) {
+        if (previous == null || next == null) {
+            return previous == next;
+        }
+        if (previous.size() != next.size()) {
+            return false;
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            final var previousKeyValue = previous.get(i);
+            final var nextKeyValue = next.get(i);
+            if (previousKeyValue.getModifyIndex() != nextKeyValue.getModifyIndex()
+                    || !Objects.equals(previousKeyValue.getKey(), nextKeyValue.getKey())
+                    || !Objects.equals(previousKeyValue.getValue(), nextKeyValue.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Handler<WatchResult<V>> handle(final String key, final long generation) {
+        return event -> {
+            if (!isCurrentWatch(key, generation)) {
+                // stopped meanwhile
+                return;
+            }
+            if (event.succeeded()) {
+                // prevResult is null on the watcher registering return
+                // and nextResult contains the current data, to compare with the seeded one if any
+                if (event.prevResult() != null || isSeeded(key)) {
+                    watcherMetrics.eventReceived(key);
+                    dispatch(key, generation, () -> handleChanges(key, event.prevResult(), event.nextResult()));
                 }
             } else {
                 onError(key, event.cause());
@@ -115,25 +506,170 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
         };
     }
 
+    private boolean isSeeded(final String key) {
+        return seededKeys.contains(key);
+    }
+
+    /**
+     * Same as {@link #dispatch(String, Runnable)}, skipping the handling when the watch got replaced or removed while it
+     * was queued
+     */
+    private void dispatch(final String key, final long generation, final Runnable handling) {
+        dispatch(key, () -> {
+            if (isCurrentWatch(key, generation)) {
+                handling.run();
+            }
+        });
+    }
+
+    /**
+     * Handles the changes out of the threads of the engine, one change at a time by key
+     */
+    private void dispatch(final String key, final Runnable handling) {
+        dispatcher.execute(key, () -> {
+            try {
+                handling.run();
+            } catch (final Exception e) {
+                onError(key, e);
+            }
+        });
+    }
+
+    /**
+     * Might be called concurrently for different keys.
+     */
     @Nonnull
     protected abstract Map<String, Object> toProperties(final String key, @Nullable final V value);
 
-    private synchronized void handleChanges(final String key, @Nonnull final V previous, @Nonnull final V next) {
-        final var previousProperties = toProperties(key, previous);
-        final var nextProperties = toProperties(key, next);
+    /**
+     * @return the Consul index of the value, 0 when unknown
+     */
+    protected abstract long getModifyIndex(@Nullable final V value);
+
+    /**
+     * @return a hash of the content of the value belonging to the key, computed with {@link #HASH_FUNCTION}
+     */
+    @Nonnull
+    protected abstract HashCode hash(final String key, @Nullable final V value);
+
+    /**
+     * @return the number of events skipped before parsing because the content of the key did not change
+     */
+    public long getShortCircuitedEvents() {
+        return shortCircuitedEvents.sum();
+    }
+
+    private void handleChanges(final String key, @Nullable final V previous, @Nullable final V next) {
+        final var snapshot = snapshots.getIfPresent(key);
+
+        // same index: Consul returned without any write on the key
+        final var previousModifyIndex = snapshot != null ? snapshot.modifyIndex() : getModifyIndex(previous);
+        final var nextModifyIndex = getModifyIndex(next);
+        watcherMetrics.index(key, nextModifyIndex);
+        if (nextModifyIndex != 0 && nextModifyIndex == previousModifyIndex) {
+            onUnchanged(key);
+            return;
+        }
+
+        // same hash: the key was written with the same content
+        final var previousHash = snapshot != null ? snapshot.hash() : hash(key, previous);
+        final var nextHash = hash(key, next);
+        if (nextHash.equals(previousHash)) {
+            if (snapshot != null) {
+                snapshots.put(key, new Snapshot(nextModifyIndex, nextHash, snapshot.properties()));
+            }
+            onUnchanged(key);
+            return;
+        }
+
+        // parsing previous value only if not already done on the previous change, and diffing the first result
+        // against the applied content when the seeded snapshot got evicted meanwhile
+        final Map<String, Object> previousProperties;
+        if (snapshot != null) {
+            previousProperties = snapshot.properties();
+        } else if (previous == null && isSeeded(key)) {
+            previousProperties = readPropertySource(key);
+        } else {
+            previousProperties = parse(key, previous);
+        }
+        // sharing the unchanged nodes with the previous version
+        final var nextProperties = PropertySnapshot.of(parse(key, next), previousProperties);
+        snapshots.put(key, new Snapshot(nextModifyIndex, nextHash, nextProperties));
         try {
-            final var difference = Maps.difference(previousProperties, nextProperties);
+            final var difference = watcherMetrics.record(Stage.DIFF, key, () -> difference(previousProperties, nextProperties));
             if (!difference.areEqual()) {
-                checkClassesTypeOnDifference(difference);
-                updatePropertySource(key, nextProperties);
-                publishDifferences(difference);
+                watcherMetrics.eventChanged(key);
+                applyChanges(key, nextProperties, difference, nextModifyIndex);
             }
         } catch (final Exception e) {
+            watcherMetrics.error(key);
             getLogger().error("Unable to apply configuration changes for key={}, previous={} and next={}", key, previous, next, e);
         }
     }
 
-    private void checkClassesTypeOnDifference(@Nonnull final MapDifference<String, Object> difference) {
+    private void applyChanges(final String key,
+            @Nonnull final Map<String, Object> nextProperties,
+            @Nonnull final MapDifference<String, Object> difference,
+            final long index) {
+        final var configChange = ConfigChange.of(key, toPropertySourceName(key), difference, index);
+        synchronized (propertySourcesLock) {
+            final var debounce = watcherConfiguration.getDebounce();
+            if (debounce.isZero() || debounce.isNegative()) {
+                watcherMetrics.record(Stage.UPDATE, key, () -> updatePropertySource(key, nextProperties, changedKeys(difference)));
+                persist(key, nextProperties, index);
+                watcherMetrics.record(Stage.PUBLISH, key, () -> {
+                    publishChanges(toRefreshChanges(difference));
+                    emit(configChange);
+                });
+            } else {
+                debounce(key, nextProperties, difference, debounce, index);
+                pendingConfigChanges.add(configChange);
+            }
+        }
+    }
+
+    @Override
+    public Flux<ConfigChange> changes() {
+        return configChanges.asFlux()
+                .onBackpressureBuffer(watcherConfiguration.getChangesBufferSize(),
+                        dropped -> getLogger().warn("Subscriber not keeping up, dropping change of [{}] at index {}", dropped.key(), dropped.index()),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * Always called holding the propertySourcesLock, the sink not supporting concurrent emissions
+     */
+    private void emit(final ConfigChange configChange) {
+        // only failing when there is no subscriber, or when closed
+        configChanges.tryEmitNext(configChange);
+    }
+
+    @Nonnull
+    private Map<String, Object> parse(final String key, @Nullable final V value) {
+        return watcherMetrics.record(Stage.PARSE, key, () -> toProperties(key, value));
+    }
+
+    private void onUnchanged(final String key) {
+        getLogger().trace("No content change for key={}, skipping", key);
+        shortCircuitedEvents.increment();
+        watcherMetrics.eventShortCircuited(key);
+    }
+
+    /**
+     * @throws IllegalStateException when a property changed to a value of an incompatible type
+     */
+    @Nonnull
+    static MapDifference<String, Object> difference(@Nonnull final Map<String, Object> previousProperties,
+            @Nonnull final Map<String, Object> nextProperties) {
+        // successive versions of a same key share their unchanged nodes, only the changed ones are compared
+        final var difference = previousProperties instanceof PropertySnapshot previousSnapshot && nextProperties instanceof PropertySnapshot nextSnapshot
+                ? PropertySnapshot.difference(previousSnapshot, nextSnapshot)
+                : Maps.difference(previousProperties, nextProperties);
+        checkClassesTypeOnDifference(difference);
+        return difference;
+    }
+
+    private static void checkClassesTypeOnDifference(@Nonnull final MapDifference<String, Object> difference) {
         for (final var entry : difference.entriesDiffering().entrySet()) {
             final var leftValue = entry.getValue().leftValue();
             final var rightValue = entry.getValue().rightValue();
@@ -147,7 +683,13 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
         }
     }
 
-    private boolean areClassesTypeIncompatible(final Class<?> leftClass, final Class<?> rightClass) {
+    @Nonnull
+    private static Set<String> changedKeys(@Nonnull final MapDifference<String, Object> difference) {
+        return Sets.union(difference.entriesDiffering().keySet(),
+                Sets.union(difference.entriesOnlyOnLeft().keySet(), difference.entriesOnlyOnRight().keySet()));
+    }
+
+    private static boolean areClassesTypeIncompatible(final Class<?> leftClass, final Class<?> rightClass) {
         if (leftClass.equals(rightClass)) {
             return false;
         }
@@ -162,25 +704,53 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
         return !Number.class.isAssignableFrom(clazz);
     }
 
-    private void updatePropertySource(final String key, @Nonnull final Map<String, Object> nextProperties) {
+    void updatePropertySource(final String key,
+            @Nonnull final Map<String, Object> nextProperties,
+            @Nonnull final Set<String> changedKeys) {
         getLogger().debug("Updating context with new configuration from [{}]", key);
 
-        final var sourceName = resolvePropertySourceName(key);
-        final var propertySourceName = ConsulClient.SERVICE_ID + '-' + sourceName;
-        final var updatedPropertySources = new ArrayList<PropertySource>();
+        final var propertySourceName = toPropertySourceName(key);
+        if (addedKeys.contains(key) && findPropertySource(propertySourceName).isEmpty()) {
+            addPropertySource(propertySourceName);
+        }
+        watcherConfiguration.getUpdateStrategy().update(environment, propertySourceName, nextProperties, changedKeys);
+    }
+
+    /**
+     * Saves the applied content of the key, with the order of its property source, so that the next boot can start from
+     * it
+     */
+    private void persist(final String key, @Nonnull final Map<String, Object> properties, final long index) {
+        final var store = snapshotStore;
+        // removed meanwhile
+        if (store == null || !watchedKeys.contains(key)) {
+            return;
+        }
+        final var propertySourceName = toPropertySourceName(key);
+        findPropertySource(propertySourceName).ifPresent(propertySource ->
+                store.put(key, new SnapshotStore.Entry(propertySourceName, propertySource.getOrder(), index, properties)));
+    }
+
+    /**
+     * Adds an empty property source for a key added at runtime, right above the ones read from Consul, so that it
+     * overrides them as the most specific one.
+     */
+    private void addPropertySource(final String propertySourceName) {
+        var order = 0;
         for (final var propertySource : environment.getPropertySources()) {
-            if (propertySource.getName().equals(propertySourceName)) {
-                // creating a new PropertySource with new values but keeping the order
-                updatedPropertySources.add(PropertySource.of(propertySourceName, nextProperties, propertySource.getOrder()));
-            } else {
-                updatedPropertySources.add(propertySource);
+            if (propertySource.getName().startsWith(SERVICE_ID + '-')) {
+                order = Math.max(order, propertySource.getOrder() + 1);
             }
         }
+        getLogger().debug("Adding property source [{}] with order {}", propertySourceName, order);
+        environment.addPropertySource(PropertySource.of(propertySourceName, Collections.emptyMap(), order));
+    }
 
-        updatedPropertySources.stream()
-                // /!\ re-setting all the propertySources sorted by Order, to keep precedence
-                .sorted(Comparator.comparing(PropertySource::getOrder))
-                .forEach(environment::addPropertySource);
+    /**
+     * @return the name of the property source of the key, as created by the bootstrap configuration client
+     */
+    private String toPropertySourceName(final String key) {
+        return SERVICE_ID + '-' + resolvePropertySourceName(key);
     }
 
     private String resolvePropertySourceName(final String key) {
@@ -197,29 +767,134 @@ abstract class AbstractConsulKVWatcher<V> implements ConsulKVWatcher {
         return name + '[' + envName + ']';
     }
 
-    private void publishDifferences(@Nonnull final MapDifference<String, Object> difference) {
+    /**
+     * Merges the changes with the ones received since the beginning of the debounce window, the first change starting
+     * it. At the end of the window, all of them are applied at once.
+     */
+    private void debounce(final String key,
+            @Nonnull final Map<String, Object> nextProperties,
+            @Nonnull final MapDifference<String, Object> difference,
+            @Nonnull final Duration debounce,
+            final long index) {
+        getLogger().debug("Delaying configuration changes from [{}]", key);
+        final var changedKeys = new HashSet<>(changedKeys(difference));
+        final var pendingUpdate = pendingUpdates.get(key);
+        if (pendingUpdate != null) {
+            changedKeys.addAll(pendingUpdate.changedKeys());
+        }
+        pendingUpdates.put(key, new PendingUpdate(nextProperties, changedKeys, index));
+        // keeping the oldest value of each property, null when added
+        toRefreshChanges(difference).forEach((name, value) -> {
+            if (!pendingChanges.containsKey(name)) {
+                pendingChanges.put(name, value);
+            }
+        });
+
+        if (flushTimerId == NO_TIMER) {
+            flushTimerId = consulKVClient.setTimer(debounce.toMillis(), timerId -> scheduleFlush());
+        }
+    }
+
+    /**
+     * Flushes out of the threads of the engine, or in the calling thread when the executor rejects it, otherwise the
+     * timer would never be reset and the next changes never applied
+     */
+    private void scheduleFlush() {
+        try {
+            executor.execute(this::flush);
+        } catch (final RejectedExecutionException e) {
+            getLogger().warn("Flush of the debounced changes rejected, flushing in the calling thread", e);
+            flush();
+        }
+    }
+
+    private void flush() {
+        synchronized (propertySourcesLock) {
+            flushTimerId = NO_TIMER;
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+
+            final var changes = new HashMap<>(pendingChanges);
+            try {
+                pendingUpdates.forEach((key, pendingUpdate) -> {
+                    watcherMetrics.record(Stage.UPDATE, key,
+                            () -> updatePropertySource(key, pendingUpdate.properties(), pendingUpdate.changedKeys()));
+                    persist(key, pendingUpdate.properties(), pendingUpdate.index());
+                });
+                watcherMetrics.record(Stage.PUBLISH, ALL_KEYS, () -> {
+                    publishChanges(changes);
+                    pendingConfigChanges.forEach(this::emit);
+                });
+            } catch (final Exception e) {
+                watcherMetrics.error(ALL_KEYS);
+                getLogger().error("Unable to apply debounced configuration changes for keys={}", pendingUpdates.keySet(), e);
+            } finally {
+                pendingUpdates.clear();
+                pendingChanges.clear();
+                pendingConfigChanges.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the previous value of every changed property, null for the added ones, so that the beans depending on an
+     * added or removed property are refreshed as well
+     */
+    @Nonnull
+    private static Map<String, Object> toRefreshChanges(@Nonnull final MapDifference<String, Object> difference) {
+        // values might be null, which Collectors.toMap does not support
+        final var changes = new HashMap<String, Object>();
+        difference.entriesDiffering().forEach((key, valueDifference) -> changes.put(key, valueDifference.leftValue()));
+        changes.putAll(difference.entriesOnlyOnLeft());
+        difference.entriesOnlyOnRight().keySet().forEach(key -> changes.put(key, null));
+        return changes;
+    }
+
+    private void publishChanges(@Nonnull final Map<String, Object> changes) {
+        if (watcherConfiguration.isTargetedRefresh()) {
+            // beans refreshed by the ConfigurationPropertiesRefresher from the emitted changes
+            return;
+        }
         getLogger().debug("Configuration has been updated, publishing RefreshEvent.");
-        final var changes = difference.entriesDiffering()
-                .entrySet()
-                .stream()
-                .map(entry -> Map.entry(entry.getKey(), entry.getValue().leftValue()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         eventPublisher.publishEvent(new RefreshEvent(changes));
     }
 
     private void onError(final String key, final Throwable error) {
+        watcherMetrics.error(key);
         getLogger().error("An error occurred while listening to config changes for key [{}]", key, error);
     }
 
     @Override
     public synchronized void stop() {
         if (isStarted) {
-            watchers.forEach((key, watcher) -> {
-                getLogger().debug("Stop watching [{}]", key);
-                watcher.stop();
-            });
+            // first, so that the watches added meanwhile stop by themselves
             isStarted = false;
+            watchers.keySet().forEach(this::stopWatcher);
+            watchedKeys.clear();
+            seededKeys.clear();
+            // including the keys of the multiplexed watch
+            watchGenerations.clear();
+            snapshots.invalidateAll();
+            synchronized (propertySourcesLock) {
+                if (flushTimerId != NO_TIMER) {
+                    consulKVClient.cancelTimer(flushTimerId);
+                    flushTimerId = NO_TIMER;
+                }
+                pendingUpdates.clear();
+                pendingChanges.clear();
+                pendingConfigChanges.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        synchronized (propertySourcesLock) {
+            configChanges.tryEmitComplete();
         }
+        consulKVClient.close();
     }
 
 }
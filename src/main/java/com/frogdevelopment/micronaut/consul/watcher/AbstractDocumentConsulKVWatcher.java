@@ -0,0 +1,112 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import com.google.common.hash.HashCode;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.consul.Watch;
+
+/**
+ * Watcher of configurations stored as a whole document in a single key
+ */
+abstract class AbstractDocumentConsulKVWatcher extends AbstractConsulKVWatcher<KeyValue> {
+
+    private final int maxDocumentSize;
+    private final WatcherMetrics watcherMetrics;
+
+    AbstractDocumentConsulKVWatcher(final Environment environment,
+            final ApplicationEventPublisher<RefreshEvent> eventPublisher,
+            final ConsulConfiguration consulConfiguration,
+            final WatcherConfiguration watcherConfiguration,
+            final WatcherMetrics watcherMetrics,
+            final ConsulKVClient consulKVClient,
+            final Executor executor) {
+        super(environment, eventPublisher, consulConfiguration, watcherConfiguration, watcherMetrics, consulKVClient, executor);
+        this.maxDocumentSize = watcherConfiguration.getMaxDocumentSize();
+        this.watcherMetrics = watcherMetrics;
+    }
+
+    @Override
+    protected Watch<KeyValue> getWatcher(final String key, final ConsulKVClient consulKVClient,
+            final ConsulKVWatch.Options options) {
+        return ConsulKVWatch.key(key, consulKVClient, options);
+    }
+
+    /**
+     * @return the path itself, a document being the value of its own key
+     */
+    @Nonnull
+    @Override
+    protected String findOwner(@Nonnull final String path) {
+        return path;
+    }
+
+    @Nullable
+    @Override
+    protected KeyValue extract(final String key, @Nullable final List<KeyValue> keyValues, final long index) {
+        return keyValues == null || keyValues.isEmpty() ? null : keyValues.get(0);
+    }
+
+    @Nonnull
+    @Override
+    protected Map<String, Object> toProperties(final String key, @Nullable final KeyValue value) {
+        if (value == null || !value.isPresent() || value.getValue() == null) {
+            return Collections.emptyMap();
+        }
+        final var document = value.getValue();
+        // checked before parsing, so that an oversized document is never loaded in memory as a tree
+        if (document.length() > maxDocumentSize) {
+            throw reject(key, String.format("%d characters exceeding the limit of %d", document.length(), maxDocumentSize));
+        }
+        return parse(key, document);
+    }
+
+    /**
+     * Counts the rejection of the document of the key, the previous configuration of the key being kept.
+     *
+     * @param reason why the document is rejected
+     * @return the exception to throw
+     */
+    protected IllegalArgumentException reject(final String key, final String reason) {
+        watcherMetrics.documentRejected(key);
+        return new IllegalArgumentException(String.format("Document of key [%s] rejected: %s", key, reason));
+    }
+
+    /**
+     * Might be called concurrently for different keys.
+     *
+     * @param key      watched key
+     * @param document content of the key
+     * @return the flattened properties of the document
+     */
+    @Nonnull
+    protected abstract Map<String, Object> parse(final String key, @Nonnull final String document);
+
+    @Override
+    protected long getModifyIndex(@Nullable final KeyValue value) {
+        return value == null || !value.isPresent() ? 0 : value.getModifyIndex();
+    }
+
+    @Nonnull
+    @Override
+    protected HashCode hash(final String key, @Nullable final KeyValue value) {
+        if (value == null || !value.isPresent() || value.getValue() == null) {
+            return HASH_FUNCTION.hashString("", StandardCharsets.UTF_8);
+        }
+        return HASH_FUNCTION.hashString(value.getValue(), StandardCharsets.UTF_8);
+    }
+
+}
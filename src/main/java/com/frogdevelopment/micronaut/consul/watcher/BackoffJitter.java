@@ -0,0 +1,77 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How the delay before retrying a failed blocking query is randomized, so that all the instances failing at the same
+ * time, ie. during a Consul leader election, do not retry all together.
+ * <p>
+ * The delay grows exponentially from the min backoff, doubling on each attempt, up to the max backoff.
+ */
+public enum BackoffJitter {
+
+    /**
+     * Exact exponential delay, without any randomization.
+     */
+    NONE {
+        @Override
+        long delay(final long minBackoff, final long maxBackoff, final int attempt, final long previousDelay) {
+            return exponential(minBackoff, maxBackoff, attempt);
+        }
+    },
+
+    /**
+     * Random delay between 0 and the exponential delay.
+     */
+    FULL {
+        @Override
+        long delay(final long minBackoff, final long maxBackoff, final int attempt, final long previousDelay) {
+            return random(0, exponential(minBackoff, maxBackoff, attempt));
+        }
+    },
+
+    /**
+     * Half of the exponential delay, plus a random delay up to the other half.
+     */
+    EQUAL {
+        @Override
+        long delay(final long minBackoff, final long maxBackoff, final int attempt, final long previousDelay) {
+            final var half = exponential(minBackoff, maxBackoff, attempt) / 2;
+            return half + random(0, half);
+        }
+    },
+
+    /**
+     * Random delay between the min backoff and three times the previous delay, capped by the max backoff.
+     */
+    DECORRELATED {
+        @Override
+        long delay(final long minBackoff, final long maxBackoff, final int attempt, final long previousDelay) {
+            return Math.min(maxBackoff, random(minBackoff, Math.max(minBackoff, previousDelay) * 3));
+        }
+    };
+
+    /**
+     * @param minBackoff    delay of the first attempt, in ms
+     * @param maxBackoff    maximum delay, in ms
+     * @param attempt       number of the attempt, starting at 0
+     * @param previousDelay delay of the previous attempt, 0 for the first one
+     * @return the delay in ms before the attempt
+     */
+    abstract long delay(long minBackoff, long maxBackoff, int attempt, long previousDelay);
+
+    private static long exponential(final long minBackoff, final long maxBackoff, final int attempt) {
+        // avoiding overflow of the shift
+        if (attempt >= Long.numberOfLeadingZeros(Math.max(minBackoff, 1)) - 1) {
+            return maxBackoff;
+        }
+        return Math.min(maxBackoff, minBackoff << attempt);
+    }
+
+    private static long random(final long origin, final long bound) {
+        if (bound <= origin) {
+            return origin;
+        }
+        return ThreadLocalRandom.current().nextLong(origin, bound + 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import com.google.common.collect.MapDifference;
+
+/**
+ * Change of the configuration of a watched key, emitted by {@link ConsulKVWatcher#changes()} once applied to the
+ * environment.
+ *
+ * @param key                watched key
+ * @param propertySourceName name of the property source of the key
+ * @param added              properties added, with their new value
+ * @param removed            properties removed, with their old value
+ * @param changed            properties whose value changed
+ * @param index              Consul index of the new configuration, 0 when unknown
+ */
+public record ConfigChange(String key,
+                           String propertySourceName,
+                           Map<String, Object> added,
+                           Map<String, Object> removed,
+                           Map<String, ValueChange> changed,
+                           long index) {
+
+    /**
+     * @param oldValue value before the change
+     * @param newValue value after the change
+     */
+    public record ValueChange(@Nullable Object oldValue, @Nullable Object newValue) {
+    }
+
+    static ConfigChange of(final String key,
+            final String propertySourceName,
+            @Nonnull final MapDifference<String, Object> difference,
+            final long index) {
+        // values might be null, which Map.copyOf does not support
+        final var changed = new HashMap<String, ValueChange>();
+        difference.entriesDiffering().forEach((name, valueDifference) ->
+                changed.put(name, new ValueChange(valueDifference.leftValue(), valueDifference.rightValue())));
+        return new ConfigChange(key,
+                propertySourceName,
+                Collections.unmodifiableMap(new HashMap<>(difference.entriesOnlyOnRight())),
+                Collections.unmodifiableMap(new HashMap<>(difference.entriesOnlyOnLeft())),
+                Collections.unmodifiableMap(changed),
+                index);
+    }
+
+    /**
+     * @return the names of all the properties added, removed or changed
+     */
+    public Set<String> names() {
+        final var names = new HashSet<String>(added.keySet());
+        names.addAll(removed.keySet());
+        names.addAll(changed.keySet());
+        return names;
+    }
+
+    /**
+     * @return whether the property was added, removed or changed
+     */
+    public boolean affects(final String name) {
+        return added.containsKey(name) || removed.containsKey(name) || changed.containsKey(name);
+    }
+}
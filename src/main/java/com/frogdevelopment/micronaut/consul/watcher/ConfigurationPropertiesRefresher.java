@@ -0,0 +1,80 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+
+import jakarta.annotation.PreDestroy;
+
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.BeanRegistration;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.ConfigurationReader;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import reactor.core.Disposable;
+
+/**
+ * Rebuilds only the {@link ConfigurationProperties} beans whose prefix matches a changed property, in place of the
+ * {@link io.micronaut.runtime.context.scope.refresh.RefreshEvent} handled by the refresh scope, when
+ * {@link WatcherConfiguration#isTargetedRefresh()}.
+ */
+@Slf4j
+@Context
+@Requires(property = WatcherConfiguration.PREFIX + ".targeted-refresh", value = "true")
+class ConfigurationPropertiesRefresher {
+
+    private final BeanContext beanContext;
+    private final Disposable subscription;
+
+    ConfigurationPropertiesRefresher(final BeanContext beanContext, final ConsulKVWatcher consulKVWatcher) {
+        this.beanContext = beanContext;
+        this.subscription = consulKVWatcher.changes().subscribe(this::refresh,
+                error -> log.error("Changes stream failed, the beans will no longer be refreshed", error));
+    }
+
+    void refresh(final ConfigChange configChange) {
+        final var names = configChange.names();
+        final Collection<BeanRegistration<Object>> registrations = beanContext.getActiveBeanRegistrations(
+                Qualifiers.byStereotype(ConfigurationProperties.class));
+        for (final var registration : registrations) {
+            final var prefix = registration.getBeanDefinition().stringValue(ConfigurationReader.class, "prefix").orElse(null);
+            if (prefix != null && names.stream().anyMatch(name -> isUnder(name, prefix))) {
+                log.debug("Refreshing the bean bound to [{}] on change of [{}]", prefix, configChange.key());
+                try {
+                    beanContext.refreshBean(registration);
+                } catch (final RuntimeException e) {
+                    // the other beans, and the next changes, must still be refreshed
+                    log.error("Unable to refresh the bean bound to [{}] on change of [{}]", prefix, configChange.key(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the property is the prefix itself or one of its children, ie. {@code datasources.default.url}
+     * under {@code datasources.default} or {@code datasources.*}, but not {@code datasources.default-2.url}
+     */
+    static boolean isUnder(final String name, final String prefix) {
+        // @EachProperty beans are bound to a wildcard prefix, ie. datasources.*
+        final var wildcard = prefix.indexOf('*');
+        if (wildcard >= 0) {
+            final var staticPrefix = prefix.substring(0, wildcard);
+            return staticPrefix.isEmpty() || isUnder(name, staticPrefix.substring(0, staticPrefix.length() - 1));
+        }
+        if (!name.startsWith(prefix)) {
+            return false;
+        }
+        if (name.length() == prefix.length()) {
+            return true;
+        }
+        final var next = name.charAt(prefix.length());
+        return next == '.' || next == '[';
+    }
+
+    @PreDestroy
+    void close() {
+        subscription.dispose();
+    }
+}
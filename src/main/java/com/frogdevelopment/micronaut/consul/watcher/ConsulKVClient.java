@@ -0,0 +1,184 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import jakarta.annotation.Nonnull;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+
+/**
+ * Minimal client of the Consul KV HTTP API, shared by all the watches, which also schedules their retries: the engine
+ * running the watches, see {@link WatcherEngine}.
+ * <p>
+ * Unlike {@link io.vertx.ext.consul.ConsulClient}, it supports the consistency modes of the KV reads, and exposes the
+ * {@code X-Consul-Index} and {@code X-Consul-LastContact} headers of the responses.
+ */
+interface ConsulKVClient {
+
+    String KV_PATH = "/v1/kv/";
+    String INDEX_HEADER = "X-Consul-Index";
+    String LAST_CONTACT_HEADER = "X-Consul-LastContact";
+    String TOKEN_HEADER = "X-Consul-Token";
+
+    /**
+     * @param result      content of the key or of the keys under the prefix, not present when not found
+     * @param index       value of {@code X-Consul-Index}, 0 if missing
+     * @param lastContact value of {@code X-Consul-LastContact}, time in ms since the server answering last contacted
+     *                    the leader, 0 if missing
+     */
+    record Response<T>(T result, long index, long lastContact) {
+    }
+
+    /**
+     * @see <a href="https://developer.hashicorp.com/consul/api-docs/kv#read-key">Read Key</a>
+     */
+    Future<Response<KeyValue>> getValue(String key, BlockingQueryOptions options, ConsistencyMode consistency);
+
+    /**
+     * @see <a href="https://developer.hashicorp.com/consul/api-docs/kv#recurse">Read Key, recursively</a>
+     */
+    Future<Response<KeyValueList>> getValues(String keyPrefix, BlockingQueryOptions options, ConsistencyMode consistency);
+
+    /**
+     * @param delay   delay in ms, at least 1
+     * @param handler called with the id of the timer once the delay elapsed
+     * @return the id of the timer
+     */
+    long setTimer(long delay, Handler<Long> handler);
+
+    /**
+     * @return false when the timer already fired or was already cancelled
+     */
+    boolean cancelTimer(long id);
+
+    /**
+     * Makes sure the blocking queries of all the watches can be pending at the same time, each holding a connection
+     * while waiting.
+     *
+     * @param watches number of watches about to be running
+     */
+    void reserveConnections(int watches);
+
+    void close();
+
+    /**
+     * @param recurse whether all the keys under the prefix are read
+     * @return the query parameters of a KV read, in order, an empty value standing for a parameter without value
+     */
+    static Map<String, String> queryParams(@Nonnull final ConsulClientOptions consulClientOptions,
+            @Nonnull final BlockingQueryOptions options,
+            @Nonnull final ConsistencyMode consistency,
+            final boolean recurse) {
+        final var params = new LinkedHashMap<String, String>();
+        if (consulClientOptions.getDc() != null) {
+            params.put("dc", consulClientOptions.getDc());
+        }
+        if (options.getIndex() > 0) {
+            params.put("index", Long.toString(options.getIndex()));
+        }
+        if (options.getWait() != null) {
+            params.put("wait", options.getWait());
+        }
+        if (recurse) {
+            params.put("recurse", "");
+        }
+        // only the presence of the parameter matters
+        if (consistency == ConsistencyMode.STALE) {
+            params.put("stale", "");
+        } else if (consistency == ConsistencyMode.CONSISTENT) {
+            params.put("consistent", "");
+        }
+        return params;
+    }
+
+    /**
+     * @param headers value of a header of the response by name, null if missing
+     * @throws VertxException when Consul answered neither 200 nor 404
+     */
+    static Response<KeyValue> toKeyValueResponse(final int statusCode, @Nonnull final Function<String, String> headers,
+            final String body) {
+        return toResponse(statusCode, headers, body, ConsulKVClient::firstKeyValue, new KeyValue());
+    }
+
+    /**
+     * @param headers value of a header of the response by name, null if missing
+     * @throws VertxException when Consul answered neither 200 nor 404
+     */
+    static Response<KeyValueList> toKeyValueListResponse(final int statusCode, @Nonnull final Function<String, String> headers,
+            final String body) {
+        final var response = toResponse(statusCode, headers, body,
+                keyValues -> new KeyValueList().setList(toKeyValues(keyValues)), new KeyValueList());
+        // as set by io.vertx.ext.consul.ConsulClient
+        response.result().setIndex(response.index());
+        return response;
+    }
+
+    private static <T> Response<T> toResponse(final int statusCode, final Function<String, String> headers, final String body,
+            final Function<JsonArray, T> mapper, final T notFound) {
+        final var index = parseHeader(headers.apply(INDEX_HEADER));
+        final var lastContact = parseHeader(headers.apply(LAST_CONTACT_HEADER));
+        return switch (statusCode) {
+            case 200 -> new Response<>(mapper.apply(new JsonArray(body)), index, lastContact);
+            case 404 -> new Response<>(notFound, index, lastContact);
+            default -> throw new VertxException(String.format("Consul responded with status %s: %s", statusCode, body), true);
+        };
+    }
+
+    /**
+     * @return the value of the header as a number, 0 if missing or invalid
+     */
+    static long parseHeader(final String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static List<KeyValue> toKeyValues(@Nonnull final JsonArray body) {
+        final var keyValues = new ArrayList<KeyValue>(body.size());
+        for (int i = 0; i < body.size(); i++) {
+            keyValues.add(toKeyValue(body.getJsonObject(i)));
+        }
+        return keyValues;
+    }
+
+    private static KeyValue toKeyValue(final JsonObject json) {
+        final var value = json.getString("Value");
+        return new KeyValue()
+                .setKey(json.getString("Key"))
+                // values are base64 encoded, null for the folders
+                .setValue(value == null ? null : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8))
+                .setModifyIndex(json.getLong("ModifyIndex", 0L))
+                .setCreateIndex(json.getLong("CreateIndex", 0L))
+                .setLockIndex(json.getLong("LockIndex", 0L))
+                .setFlags(json.getLong("Flags", 0L))
+                .setSession(json.getString("Session"));
+    }
+
+    /**
+     * @return the first of the KV, or an empty one when none
+     */
+    static KeyValue firstKeyValue(@Nonnull final JsonArray body) {
+        final var keyValues = toKeyValues(body);
+        return keyValues.isEmpty() ? new KeyValue() : keyValues.get(0);
+    }
+}
@@ -0,0 +1,297 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+import jakarta.annotation.Nullable;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.consul.Watch;
+import io.vertx.ext.consul.WatchResult;
+
+/**
+ * {@link Watch} of the KV store running its blocking queries through a given {@link ConsulKVClient}, so that all the
+ * watches share the same HTTP connection pool, where {@link Watch#key} and {@link Watch#keyPrefix} create a new client
+ * for each watch.
+ * <p>
+ * As with the vert.x implementation, the handler is called with the first result, then each time the index changes,
+ * and on each error, the query being retried after a backoff delay. Unlike it, results whose index went backwards are
+ * dropped, see {@link #onBackwardIndex}.
+ */
+@Slf4j
+abstract class ConsulKVWatch<T> implements Watch<T> {
+
+    private static final long NO_TIMER = -1;
+
+    protected final String key;
+    protected final ConsulKVClient consulKVClient;
+    private final Options options;
+    private final String blockingWait;
+
+    private Handler<WatchResult<T>> handler;
+    private volatile boolean running;
+    // only accessed by the query callbacks, which are never concurrent
+    private T lastResult;
+    private boolean hasResult;
+    private long lastIndex;
+    // index of the next query, reset to 0 when the index went backwards
+    private long queryIndex;
+    private int backwardResults;
+    // when the last result was too stale, or went backwards, the next query is answered by the leader
+    private boolean queryLeader;
+    private int retryAttempt;
+    private long retryDelay;
+    private volatile long timerId = NO_TIMER;
+
+    /**
+     * @param wait       maximum duration of a blocking query, Consul answering earlier only on change
+     * @param minBackoff delay before the first retry of a failed query
+     * @param maxBackoff maximum delay before retrying a failed query
+     * @param jitter              randomization of the delay between two retries
+     * @param indexResetThreshold number of consecutive results with an index lower than the last one after which the
+     *                            index is considered as reset
+     * @param consistency         consistency mode of the queries
+     * @param maxStaleness        with the {@link ConsistencyMode#STALE} mode, maximum time since the answering server
+     *                            last contacted the leader, {@code null} when unbounded
+     * @param metrics             counting the retries and the dropped results
+     * @param initialIndex        index of the first query, 0 for a non-blocking one
+     */
+    record Options(Duration wait, Duration minBackoff, Duration maxBackoff, BackoffJitter jitter, int indexResetThreshold,
+                   ConsistencyMode consistency, @Nullable Duration maxStaleness, WatcherMetrics metrics, long initialIndex) {
+
+        static Options of(final WatcherConfiguration watcherConfiguration, final WatcherMetrics watcherMetrics) {
+            return new Options(watcherConfiguration.getWaitTime(),
+                    watcherConfiguration.getMinBackoff(),
+                    watcherConfiguration.getMaxBackoff(),
+                    watcherConfiguration.getBackoffJitter(),
+                    watcherConfiguration.getIndexResetThreshold(),
+                    watcherConfiguration.getConsistency(),
+                    watcherConfiguration.getMaxStaleness(),
+                    watcherMetrics,
+                    0);
+        }
+
+        /**
+         * @param index known index of the watched content, the first query returning only once it changed
+         * @return the same options, with the given index for the first query
+         */
+        Options startingAt(final long index) {
+            return new Options(wait, minBackoff, maxBackoff, jitter, indexResetThreshold, consistency, maxStaleness, metrics, index);
+        }
+    }
+
+    private record Result<T>(T prevResult, T nextResult, Throwable cause) implements WatchResult<T> {
+
+        @Override
+        public boolean succeeded() {
+            return cause == null;
+        }
+
+        @Override
+        public boolean failed() {
+            return cause != null;
+        }
+    }
+
+    ConsulKVWatch(final String key, final ConsulKVClient consulKVClient, final Options options) {
+        this.key = key;
+        this.consulKVClient = consulKVClient;
+        this.options = options;
+        // Consul expects a duration with a unit
+        this.blockingWait = options.wait().toMillis() + "ms";
+        this.queryIndex = options.initialIndex();
+    }
+
+    static Watch<KeyValue> key(final String key, final ConsulKVClient consulKVClient, final Options options) {
+        return new Key(key, consulKVClient, options);
+    }
+
+    static Watch<KeyValueList> keyPrefix(final String keyPrefix, final ConsulKVClient consulKVClient, final Options options) {
+        return new KeyPrefix(keyPrefix, consulKVClient, options);
+    }
+
+    /**
+     * Watch of a single key
+     */
+    static class Key extends ConsulKVWatch<KeyValue> {
+
+        Key(final String key, final ConsulKVClient consulKVClient, final Options options) {
+            super(key, consulKVClient, options);
+        }
+
+        @Override
+        protected Future<ConsulKVClient.Response<KeyValue>> query(final BlockingQueryOptions options, final ConsistencyMode consistency) {
+            return consulKVClient.getValue(key, options, consistency);
+        }
+    }
+
+    /**
+     * Watch of all the keys under a prefix
+     */
+    static class KeyPrefix extends ConsulKVWatch<KeyValueList> {
+
+        KeyPrefix(final String keyPrefix, final ConsulKVClient consulKVClient, final Options options) {
+            super(keyPrefix, consulKVClient, options);
+        }
+
+        @Override
+        protected Future<ConsulKVClient.Response<KeyValueList>> query(final BlockingQueryOptions options, final ConsistencyMode consistency) {
+            return consulKVClient.getValues(key, options, consistency);
+        }
+    }
+
+    protected abstract Future<ConsulKVClient.Response<T>> query(BlockingQueryOptions options, ConsistencyMode consistency);
+
+    @Override
+    public Watch<T> setHandler(final Handler<WatchResult<T>> handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    @Override
+    public synchronized Watch<T> start() {
+        if (!running) {
+            running = true;
+            fetch();
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        final var timer = timerId;
+        if (timer != NO_TIMER) {
+            consulKVClient.cancelTimer(timer);
+            timerId = NO_TIMER;
+        }
+    }
+
+    private void fetch() {
+        if (!running) {
+            return;
+        }
+        final var queryOptions = new BlockingQueryOptions()
+                .setIndex(queryIndex)
+                .setWait(blockingWait);
+        final var consistency = queryLeader ? ConsistencyMode.DEFAULT : options.consistency();
+        query(queryOptions, consistency).onComplete(asyncResult -> {
+            if (!running) {
+                return;
+            }
+            if (asyncResult.succeeded()) {
+                onResponse(asyncResult.result(), consistency);
+            } else {
+                onError(asyncResult.cause());
+            }
+        });
+    }
+
+    private void onResponse(final ConsulKVClient.Response<T> response, final ConsistencyMode consistency) {
+        retryAttempt = 0;
+        retryDelay = 0;
+        if (isTooStale(response)) {
+            log.debug("Result of [{}] is {}ms stale, querying the leader", key, response.lastContact());
+            options.metrics().eventDropped(key);
+            queryLeader = true;
+            fetch();
+            return;
+        }
+        queryLeader = false;
+        onResult(response.result(), response.index(), consistency);
+    }
+
+    private boolean isTooStale(final ConsulKVClient.Response<T> response) {
+        return options.consistency() == ConsistencyMode.STALE
+               && options.maxStaleness() != null
+               && response.lastContact() > options.maxStaleness().toMillis();
+    }
+
+    private void onResult(final T nextResult, final long nextIndex, final ConsistencyMode consistency) {
+        // 0 when the index is not known, which is not comparable
+        if (hasResult && nextIndex > 0 && nextIndex < lastIndex) {
+            onBackwardIndex(nextResult, nextIndex, consistency);
+        } else {
+            backwardResults = 0;
+            accept(nextResult, nextIndex);
+        }
+    }
+
+    private void accept(final T nextResult, final long nextIndex) {
+        if (!hasResult || nextIndex != lastIndex) {
+            notify(new Result<>(lastResult, nextResult, null));
+        }
+        lastResult = nextResult;
+        hasResult = true;
+        lastIndex = Math.max(nextIndex, 0);
+        queryIndex = lastIndex;
+        if (lastIndex == 0) {
+            // a query without index does not block: polling instead of flooding Consul
+            schedule(Math.max(options.minBackoff().toMillis(), 1));
+        } else {
+            fetch();
+        }
+    }
+
+    /**
+     * The index went backwards: either a stale read from a server lagging behind, or a reset of the Consul state, ie.
+     * after a snapshot restore. The result is dropped, so that an older content is not applied over a newer one, and
+     * the query is sent again without index, as recommended by Consul. A result from a {@link ConsistencyMode#STALE}
+     * read is confirmed by the leader right away, as the same lagging server would answer again. When the index reported
+     * by the leader is still lower after {@link Options#indexResetThreshold()} consecutive results, it is considered as
+     * reset and the result is applied.
+     * <p>
+     * No change is lost this way, as each result holds the whole content of the key.
+     */
+    private void onBackwardIndex(final T nextResult, final long nextIndex, final ConsistencyMode consistency) {
+        if (consistency == ConsistencyMode.STALE) {
+            log.debug("Index of [{}] went backwards from {} to {} on a stale read, querying the leader", key, lastIndex, nextIndex);
+            options.metrics().eventDropped(key);
+            queryIndex = 0;
+            queryLeader = true;
+            fetch();
+            return;
+        }
+        backwardResults++;
+        if (backwardResults >= options.indexResetThreshold()) {
+            log.warn("Index of [{}] went backwards from {} to {} {} times in a row, considering it as reset", key, lastIndex, nextIndex, backwardResults);
+            backwardResults = 0;
+            options.metrics().indexReset(key);
+            accept(nextResult, nextIndex);
+        } else {
+            log.debug("Index of [{}] went backwards from {} to {}, dropping the result", key, lastIndex, nextIndex);
+            options.metrics().eventDropped(key);
+            queryIndex = 0;
+            schedule(Math.max(options.minBackoff().toMillis(), 1));
+        }
+    }
+
+    private void onError(final Throwable cause) {
+        notify(new Result<>(null, null, cause));
+        retryDelay = options.jitter().delay(options.minBackoff().toMillis(), options.maxBackoff().toMillis(), retryAttempt, retryDelay);
+        retryAttempt++;
+        options.metrics().retry(key);
+        // timers must last at least 1ms
+        schedule(Math.max(retryDelay, 1));
+    }
+
+    private void notify(final WatchResult<T> result) {
+        final var currentHandler = handler;
+        if (currentHandler != null) {
+            currentHandler.handle(result);
+        }
+    }
+
+    private void schedule(final long delay) {
+        timerId = consulKVClient.setTimer(delay, id -> {
+            timerId = NO_TIMER;
+            fetch();
+        });
+    }
+}
@@ -1,8 +1,45 @@
 package com.frogdevelopment.micronaut.consul.watcher;
 
-public interface ConsulKVWatcher {
+import reactor.core.publisher.Flux;
+
+public interface ConsulKVWatcher extends AutoCloseable {
 
     void start();
 
     void stop();
+
+    /**
+     * Starts watching a key at runtime, ie. the configuration of a tenant, the other watches being left untouched. When
+     * not started yet, the key is watched on start.
+     *
+     * @param key full path of the key in the KV store
+     * @return false when the key was already watched
+     */
+    boolean addWatch(String key);
+
+    /**
+     * Stops watching a key at runtime, removing its properties from the environment, the other watches being left
+     * untouched.
+     *
+     * @param key full path of the key in the KV store
+     * @return false when the key was not watched
+     */
+    boolean removeWatch(String key);
+
+    /**
+     * Hot stream of the configuration changes, each one emitted once applied to the environment, letting a component
+     * react to the change of specific properties without a whole refresh.
+     * <p>
+     * Each subscriber only receives the changes applied after its subscription. A slow subscriber has its own bounded
+     * buffer, dropping the oldest changes when full, so that it never blocks the watcher nor the other subscribers.
+     * The changes are delivered on the thread applying them, so a subscriber doing more than a quick update should
+     * {@link Flux#publishOn} its own scheduler. Completes when the watcher is closed.
+     */
+    Flux<ConfigChange> changes();
+
+    /**
+     * Stops watching and releases the connections to Consul, the watcher can not be restarted afterwards.
+     */
+    @Override
+    void close();
 }
@@ -1,32 +1,39 @@
 package com.frogdevelopment.micronaut.consul.watcher;
 
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+
+import jakarta.annotation.Nullable;
+
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.BeanProvider;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.BootstrapContextCompatible;
 import io.micronaut.context.annotation.Context;
 import io.micronaut.context.annotation.Factory;
-import io.micronaut.context.annotation.Primary;
 import io.micronaut.context.env.Environment;
 import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.inject.qualifiers.Qualifiers;
 import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
 import io.vertx.ext.consul.ConsulClientOptions;
 
 @Factory
 public class ConsulWatcherFactory {
 
     @Context
-    @Primary
     @Bean(preDestroy = "close")
-    Vertx vertx() {
-        return Vertx.vertx();
-    }
-
-    @Context
     ConsulKVWatcher consulKVWatcher(final Environment environment,
             final ApplicationEventPublisher<RefreshEvent> eventPublisher,
             final ConsulConfiguration consulConfiguration,
-            final Vertx vertx) {
+            final WatcherConfiguration watcherConfiguration,
+            @Nullable final WatcherMetrics watcherMetrics,
+            final BeanContext beanContext,
+            final BeanProvider<Vertx> vertx) {
+        final var metrics = Objects.requireNonNullElse(watcherMetrics, WatcherMetrics.NOOP);
+        final var executor = beanContext.getBean(ExecutorService.class, Qualifiers.byName(watcherConfiguration.getExecutor()));
 
         final var consulClientOptions = new ConsulClientOptions()
                 .setHost(consulConfiguration.getHost())
@@ -35,12 +42,30 @@ public class ConsulWatcherFactory {
         consulConfiguration.getAslToken().ifPresent(consulClientOptions::setAclToken);
         consulConfiguration.getConfiguration().getDatacenter().ifPresent(consulClientOptions::setDc);
         consulConfiguration.getConnectTimeout().ifPresent(connectTimeout -> consulClientOptions.setConnectTimeout(Math.toIntExact(connectTimeout.toMillis())));
+        consulClientOptions.setMaxPoolSize(watcherConfiguration.getMaxPoolSize());
+        consulClientOptions.setKeepAlive(watcherConfiguration.isKeepAlive());
+        consulClientOptions.setKeepAliveTimeout(Math.toIntExact(watcherConfiguration.getKeepAliveTimeout().toSeconds()));
+        consulClientOptions.setPipelining(watcherConfiguration.isPipelining());
+        // shared by all the watches, closed with the watcher
+        final ConsulKVClient consulKVClient = switch (watcherConfiguration.getEngine()) {
+            // reusing the vert.x instance of the application when it has one
+            case VERTX -> vertx.isPresent()
+                    ? new VertxConsulKVClient(vertx::get, false, consulClientOptions)
+                    : new VertxConsulKVClient(() -> Vertx.vertx(new VertxOptions().setEventLoopPoolSize(watcherConfiguration.getEventLoops())),
+                            true, consulClientOptions);
+            case VIRTUAL_THREADS -> new HttpConsulKVClient(consulClientOptions);
+        };
 
         final var format = consulConfiguration.getConfiguration().getFormat();
         return switch (format) {
-            case NATIVE -> new NativeConsulKVWatcher(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
-            case YAML, PROPERTIES -> new YamlConsulKVWatcher(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
-            default -> throw new UnsupportedOperationException("Unhandled configuration format: " + format);
+            case NATIVE -> new NativeConsulKVWatcher(environment, eventPublisher, consulConfiguration, watcherConfiguration, metrics, consulKVClient, executor);
+            case YAML -> new YamlConsulKVWatcher(environment, eventPublisher, consulConfiguration, watcherConfiguration, metrics, consulKVClient, executor);
+            case PROPERTIES -> new PropertiesConsulKVWatcher(environment, eventPublisher, consulConfiguration, watcherConfiguration, metrics, consulKVClient, executor);
+            case JSON -> new JsonConsulKVWatcher(environment, eventPublisher, consulConfiguration, watcherConfiguration, metrics, consulKVClient, executor);
+            default -> {
+                consulKVClient.close();
+                throw new UnsupportedOperationException("Unhandled configuration format: " + format);
+            }
         };
     }
 
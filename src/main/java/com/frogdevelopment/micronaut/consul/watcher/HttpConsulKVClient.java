@@ -0,0 +1,220 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.VertxException;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+
+/**
+ * {@link ConsulKVClient} running each query as a plain blocking call of the JDK {@link HttpClient} on its own virtual
+ * thread, see {@link WatcherEngine#VIRTUAL_THREADS}.
+ * <p>
+ * A parked virtual thread costs a few hundred bytes, so holding one per blocking query is cheap even with thousands of
+ * watched keys, and the watches do not depend on a vert.x instance. Before Java 21, the queries run on a cached pool of
+ * platform threads instead, reused from one query to the next. The timers are scheduled by a single thread, their
+ * handlers being run by the executor of the queries.
+ */
+@Slf4j
+class HttpConsulKVClient implements ConsulKVClient {
+
+    private static final String THREAD_PREFIX = "consul-watcher-";
+
+    private final ConsulClientOptions consulClientOptions;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+    private final HttpClient httpClient;
+    private final AtomicLong timerIds = new AtomicLong();
+    // handlers of the pending timers, a cancelled timer still firing but without handler
+    private final Map<Long, Handler<Long>> timers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    HttpConsulKVClient(final ConsulClientOptions consulClientOptions) {
+        this(consulClientOptions, newExecutor());
+    }
+
+    /**
+     * @param executor running the queries and the handlers of the timers, shut down with the client
+     */
+    HttpConsulKVClient(final ConsulClientOptions consulClientOptions, final ExecutorService executor) {
+        this.consulClientOptions = consulClientOptions;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(platformThreads(THREAD_PREFIX + "timer-"));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(consulClientOptions.getConnectTimeout()))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Virtual threads are looked up by reflection, as the library still targets Java 17.
+     *
+     * @return an executor starting a virtual thread per task, or a cached pool of daemon platform threads when not
+     * available
+     */
+    static ExecutorService newExecutor() {
+        try {
+            final var builderClass = Class.forName("java.lang.Thread$Builder");
+            var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 0L);
+            final var threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (final ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, using a pool of platform threads", Runtime.version().feature());
+            return Executors.newCachedThreadPool(platformThreads(THREAD_PREFIX));
+        }
+    }
+
+    private static ThreadFactory platformThreads(final String prefix) {
+        final var counter = new AtomicLong();
+        return runnable -> {
+            final var thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public Future<Response<KeyValue>> getValue(final String key, final BlockingQueryOptions options, final ConsistencyMode consistency) {
+        return send(key, options, consistency, false, response ->
+                ConsulKVClient.toKeyValueResponse(response.statusCode(), headers(response), response.body()));
+    }
+
+    @Override
+    public Future<Response<KeyValueList>> getValues(final String keyPrefix, final BlockingQueryOptions options, final ConsistencyMode consistency) {
+        return send(keyPrefix, options, consistency, true, response ->
+                ConsulKVClient.toKeyValueListResponse(response.statusCode(), headers(response), response.body()));
+    }
+
+    @Override
+    public long setTimer(final long delay, final Handler<Long> handler) {
+        final var id = timerIds.incrementAndGet();
+        timers.put(id, handler);
+        scheduler.schedule(() -> {
+            final var pending = timers.remove(id);
+            if (pending != null) {
+                executor.execute(() -> pending.handle(id));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return id;
+    }
+
+    @Override
+    public boolean cancelTimer(final long id) {
+        return timers.remove(id) != null;
+    }
+
+    @Override
+    public void reserveConnections(final int watches) {
+        // a new connection is opened for each concurrent query
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        timers.clear();
+        scheduler.shutdownNow();
+        // interrupting the threads of the pending blocking queries
+        executor.shutdownNow();
+    }
+
+    private <T> Future<Response<T>> send(final String key, final BlockingQueryOptions options, final ConsistencyMode consistency,
+            final boolean recurse, final Function<HttpResponse<String>, Response<T>> mapper) {
+        if (closed) {
+            return Future.failedFuture(new VertxException("Client is closed", true));
+        }
+        final Promise<Response<T>> promise = Promise.promise();
+        try {
+            final var request = request(key, options, consistency, recurse);
+            executor.execute(() -> {
+                try {
+                    promise.tryComplete(mapper.apply(httpClient.send(request, HttpResponse.BodyHandlers.ofString())));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    promise.tryFail(e);
+                } catch (final IOException | RuntimeException e) {
+                    promise.tryFail(e);
+                }
+            });
+        } catch (final URISyntaxException | RuntimeException e) {
+            // including the rejection by the executor of a client closed meanwhile
+            promise.tryFail(e);
+        }
+        return promise.future();
+    }
+
+    private static Function<String, String> headers(final HttpResponse<String> response) {
+        return name -> response.headers().firstValue(name).orElse(null);
+    }
+
+    private HttpRequest request(final String key, final BlockingQueryOptions options, final ConsistencyMode consistency,
+            final boolean recurse) throws URISyntaxException {
+        final var query = new StringBuilder();
+        ConsulKVClient.queryParams(consulClientOptions, options, consistency, recurse).forEach((name, value) -> {
+            if (!query.isEmpty()) {
+                query.append('&');
+            }
+            query.append(name);
+            if (!value.isEmpty()) {
+                query.append('=').append(value);
+            }
+        });
+        // the multi-arguments constructor quotes the illegal characters of the key
+        final var uri = new URI(consulClientOptions.isSsl() ? "https" : "http", null,
+                consulClientOptions.getHost(), consulClientOptions.getPort(),
+                KV_PATH + key, query.isEmpty() ? null : query.toString(), null);
+        final var builder = HttpRequest.newBuilder(uri)
+                .GET()
+                // Consul answers up to wait/16 later than asked, to spread the answers of the queries
+                .timeout(Duration.ofMillis(waitMillis(options.getWait()) * 17 / 16 + consulClientOptions.getConnectTimeout()));
+        if (consulClientOptions.getAclToken() != null) {
+            builder.header(TOKEN_HEADER, consulClientOptions.getAclToken());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param wait duration with a unit as sent to Consul, ie. {@code 300000ms} or {@code 5m}
+     * @return the duration in ms, 0 when not set
+     */
+    static long waitMillis(final String wait) {
+        if (wait == null || wait.isEmpty()) {
+            return 0;
+        }
+        if (wait.endsWith("ms")) {
+            return Long.parseLong(wait.substring(0, wait.length() - 2));
+        }
+        final var value = Long.parseLong(wait.substring(0, wait.length() - 1));
+        return switch (wait.charAt(wait.length() - 1)) {
+            case 's' -> Duration.ofSeconds(value).toMillis();
+            case 'm' -> Duration.ofMinutes(value).toMillis();
+            case 'h' -> Duration.ofHours(value).toMillis();
+            default -> throw new IllegalArgumentException("Unsupported wait duration: " + wait);
+        };
+    }
+}
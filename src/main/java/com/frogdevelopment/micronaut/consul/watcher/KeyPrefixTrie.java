@@ -0,0 +1,75 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Immutable trie of the watched keys, resolving the key owning a KV path in a single walk of the path characters,
+ * without any string allocation.
+ * <p>
+ * A path is owned by a watched key when it is located under it, ie. {@code config/application/foo} is owned by
+ * {@code config/application} but not by {@code config/app} nor {@code config/application,dev}.
+ */
+final class KeyPrefixTrie {
+
+    private static final char SEPARATOR = '/';
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        // watched key ending on this node
+        private String key;
+    }
+
+    private KeyPrefixTrie(@Nonnull final Collection<String> keys) {
+        for (final var key : keys) {
+            var node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            node.key = key;
+        }
+    }
+
+    @Nonnull
+    static KeyPrefixTrie of(@Nonnull final Collection<String> keys) {
+        return new KeyPrefixTrie(keys);
+    }
+
+    /**
+     * @return {@code true} if the key is one of the watched keys
+     */
+    boolean contains(@Nonnull final String key) {
+        var node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node != null && key.equals(node.key);
+    }
+
+    /**
+     * @param path full path of a KV
+     * @return the deepest watched key owning the path, {@code null} if none
+     */
+    @Nullable
+    String findOwner(@Nonnull final String path) {
+        String owner = null;
+        var node = root;
+        final var length = path.length();
+        for (int i = 0; i < length; i++) {
+            node = node.children.get(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.key != null && i + 1 < length && path.charAt(i + 1) == SEPARATOR) {
+                owner = node.key;
+            }
+        }
+        return owner;
+    }
+}
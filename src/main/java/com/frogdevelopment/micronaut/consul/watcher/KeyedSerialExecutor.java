@@ -0,0 +1,64 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the tasks submitted for a same key one after the other, in submission order, while the tasks of different keys
+ * run in parallel on the underlying {@link Executor}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class KeyedSerialExecutor {
+
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final Executor executor;
+
+    // last task submitted by key, removed once it completes
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    void execute(final String key, final Runnable task) {
+        final var tail = new CompletableFuture<Void>();
+        final var previous = tails.put(key, tail);
+        // chained out of the map update, as the task might run right away in the calling thread
+        (previous == null ? COMPLETED : previous).whenComplete((result, error) -> submit(key, task, tail));
+    }
+
+    /**
+     * @return the number of keys with a pending or running task
+     */
+    int pendingKeys() {
+        return tails.size();
+    }
+
+    private void submit(final String key, final Runnable task, final CompletableFuture<Void> tail) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (final RuntimeException e) {
+                    // the next task must run even if the previous one failed
+                    log.error("Task failed for key [{}]", key, e);
+                } finally {
+                    complete(key, tail);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.error("Task rejected for key [{}], skipping it", key, e);
+            complete(key, tail);
+        }
+    }
+
+    private void complete(final String key, final CompletableFuture<Void> tail) {
+        tails.remove(key, tail);
+        tail.complete(null);
+    }
+
+}
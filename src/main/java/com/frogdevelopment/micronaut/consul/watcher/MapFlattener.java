@@ -0,0 +1,46 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Flattens nested maps into dotted property paths, keeping the type of the leaf values, so that a difference between 2
+ * documents is computed leaf by leaf.
+ * <pre>
+ * datasources:
+ *   default:
+ *     url: jdbc:h2:mem:db
+ * </pre>
+ * becomes {@code datasources.default.url=jdbc:h2:mem:db}. Lists and empty maps are kept as leaf values.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class MapFlattener {
+
+    @Nonnull
+    static Map<String, Object> flatten(@Nullable final Map<?, ?> map) {
+        if (map == null || map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final var flattened = new LinkedHashMap<String, Object>();
+        flatten("", map, flattened);
+        return flattened;
+    }
+
+    private static void flatten(final String prefix, final Map<?, ?> map, final Map<String, Object> flattened) {
+        for (final var entry : map.entrySet()) {
+            final var key = prefix + entry.getKey();
+            if (entry.getValue() instanceof Map<?, ?> nested && !nested.isEmpty()) {
+                flatten(key + '.', nested, flattened);
+            } else {
+                flattened.put(key, entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import jakarta.inject.Singleton;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micronaut.context.annotation.Requires;
+
+/**
+ * {@link WatcherMetrics} registering the meters in the Micrometer {@link MeterRegistry}, all prefixed by
+ * {@value #PREFIX} and tagged by watched key.
+ */
+@Singleton
+@Requires(classes = MeterRegistry.class)
+@Requires(beans = MeterRegistry.class)
+@RequiredArgsConstructor
+class MicrometerWatcherMetrics implements WatcherMetrics {
+
+    static final String PREFIX = WatcherConfiguration.PREFIX;
+    static final String KEY_TAG = "key";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> indexes = new ConcurrentHashMap<>();
+
+    @Override
+    public void eventReceived(final String key) {
+        meterRegistry.counter(PREFIX + ".events.received", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void eventChanged(final String key) {
+        meterRegistry.counter(PREFIX + ".events.changed", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void eventShortCircuited(final String key) {
+        meterRegistry.counter(PREFIX + ".events.short-circuited", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void eventDropped(final String key) {
+        meterRegistry.counter(PREFIX + ".events.dropped", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void indexReset(final String key) {
+        meterRegistry.counter(PREFIX + ".index.resets", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void documentRejected(final String key) {
+        meterRegistry.counter(PREFIX + ".documents.rejected", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void error(final String key) {
+        meterRegistry.counter(PREFIX + ".errors", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void retry(final String key) {
+        meterRegistry.counter(PREFIX + ".retries", KEY_TAG, key).increment();
+    }
+
+    @Override
+    public void index(final String key, final long index) {
+        indexes.computeIfAbsent(key, k -> meterRegistry.gauge(PREFIX + ".index", Tags.of(KEY_TAG, k), new AtomicLong()))
+                .set(index);
+    }
+
+    @Override
+    public <T> T record(final Stage stage, final String key, final Supplier<T> supplier) {
+        return meterRegistry.timer(PREFIX + "." + stage.getMeterName(), KEY_TAG, key).record(supplier);
+    }
+
+    @Override
+    public void record(final Stage stage, final String key, final Runnable runnable) {
+        meterRegistry.timer(PREFIX + "." + stage.getMeterName(), KEY_TAG, key).record(runnable);
+    }
+}
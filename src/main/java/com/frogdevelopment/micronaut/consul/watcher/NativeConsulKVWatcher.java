@@ -2,21 +2,24 @@ package com.frogdevelopment.micronaut.consul.watcher;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
 
+import com.google.common.hash.HashCode;
+
 import io.micronaut.context.env.Environment;
 import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
 import io.vertx.ext.consul.KeyValue;
 import io.vertx.ext.consul.KeyValueList;
 import io.vertx.ext.consul.Watch;
@@ -29,17 +32,60 @@ public class NativeConsulKVWatcher extends AbstractConsulKVWatcher<KeyValueList>
         return log;
     }
 
+    // set on start
+    private volatile KeyPrefixTrie watchedKeys;
+
     NativeConsulKVWatcher(final Environment environment,
             final ApplicationEventPublisher<RefreshEvent> eventPublisher,
             final ConsulConfiguration consulConfiguration,
-            final Vertx vertx,
-            final ConsulClientOptions consulClientOptions) {
-        super(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
+            final WatcherConfiguration watcherConfiguration,
+            final WatcherMetrics watcherMetrics,
+            final ConsulKVClient consulKVClient,
+            final Executor executor) {
+        super(environment, eventPublisher, consulConfiguration, watcherConfiguration, watcherMetrics, consulKVClient, executor);
+    }
+
+    @Override
+    protected Watch<KeyValueList> getWatcher(final String key, final ConsulKVClient consulKVClient,
+            final ConsulKVWatch.Options options) {
+        return ConsulKVWatch.keyPrefix(key, consulKVClient, options);
+    }
+
+    @Override
+    protected void onWatchedKeys(@Nonnull final List<String> keys) {
+        watchedKeys = KeyPrefixTrie.of(keys);
+    }
+
+    /**
+     * @return the trie of all the watched keys, or of the given key alone if not watched
+     */
+    private KeyPrefixTrie getWatchedKeys(final String key) {
+        final var trie = watchedKeys;
+        if (trie != null && trie.contains(key)) {
+            return trie;
+        }
+        return KeyPrefixTrie.of(List.of(key));
     }
 
+    /**
+     * @return the deepest watched key under which the KV is located
+     */
+    @Nullable
     @Override
-    protected Watch<KeyValueList> getWatcher(final String key, final Vertx vertx, final ConsulClientOptions consulClientOptions) {
-        return Watch.keyPrefix(key, vertx, consulClientOptions);
+    protected String findOwner(@Nonnull final String path) {
+        final var trie = watchedKeys;
+        return trie == null ? null : trie.findOwner(path);
+    }
+
+    @Nullable
+    @Override
+    protected KeyValueList extract(final String key, @Nullable final List<KeyValue> keyValues, final long index) {
+        final var keyValueList = new KeyValueList();
+        keyValueList.setIndex(index);
+        if (keyValues != null) {
+            keyValueList.setList(keyValues);
+        }
+        return keyValueList;
     }
 
     @Nonnull
@@ -48,16 +94,60 @@ public class NativeConsulKVWatcher extends AbstractConsulKVWatcher<KeyValueList>
         if (value == null || !value.isPresent()) {
             return Collections.emptyMap();
         }
-        return value.getList()
-                .stream()
-                // excluding not matching KV for other active profile
-                .filter(keyValue -> keyValue.getKey().startsWith(key + "/"))
-                .collect(Collectors.toMap(this::toPropertyKey, KeyValue::getValue));
+        final var trie = getWatchedKeys(key);
+        final var properties = new HashMap<String, Object>();
+        for (final var keyValue : value.getList()) {
+            // excluding not matching KV for other active profile, and the folders
+            if (isOwnedBy(trie, key, keyValue) && keyValue.getValue() != null) {
+                final var propertyKey = toPropertyKey(key, keyValue);
+                if (!propertyKey.isEmpty()) {
+                    properties.put(propertyKey, keyValue.getValue());
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static boolean isOwnedBy(final KeyPrefixTrie trie, final String key, final KeyValue keyValue) {
+        return key.equals(trie.findOwner(keyValue.getKey()));
+    }
+
+    @Override
+    protected long getModifyIndex(@Nullable final KeyValueList value) {
+        return value == null ? 0 : value.getIndex();
     }
 
-    private String toPropertyKey(final KeyValue kv) {
-        final var tokens = kv.getKey().split("/");
-        return tokens[tokens.length - 1];
+    @Nonnull
+    @Override
+    protected HashCode hash(final String key, @Nullable final KeyValueList value) {
+        final var hasher = HASH_FUNCTION.newHasher();
+        if (value != null && value.isPresent()) {
+            final var trie = getWatchedKeys(key);
+            for (final var keyValue : value.getList()) {
+                if (isOwnedBy(trie, key, keyValue)) {
+                    hasher.putString(keyValue.getKey(), StandardCharsets.UTF_8).putByte((byte) 0);
+                    if (keyValue.getValue() != null) {
+                        hasher.putString(keyValue.getValue(), StandardCharsets.UTF_8);
+                    }
+                    hasher.putByte((byte) 0);
+                }
+            }
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * @return the path of the KV relative to the key, as a dotted property path: {@code config/app/datasources/default/url}
+     * watched by {@code config/app} becomes {@code datasources.default.url}
+     */
+    private static String toPropertyKey(final String key, final KeyValue keyValue) {
+        final var path = keyValue.getKey();
+        var end = path.length();
+        // folders are ending by a slash
+        while (end > key.length() + 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(key.length() + 1, end).replace('/', '.');
     }
 
 }
@@ -0,0 +1,41 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import jakarta.annotation.Nonnull;
+
+import org.slf4j.Logger;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
+
+@Slf4j
+public class PropertiesConsulKVWatcher extends AbstractDocumentConsulKVWatcher {
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+
+    PropertiesConsulKVWatcher(final Environment environment,
+            final ApplicationEventPublisher<RefreshEvent> eventPublisher,
+            final ConsulConfiguration consulConfiguration,
+            final WatcherConfiguration watcherConfiguration,
+            final WatcherMetrics watcherMetrics,
+            final ConsulKVClient consulKVClient,
+            final Executor executor) {
+        super(environment, eventPublisher, consulConfiguration, watcherConfiguration, watcherMetrics, consulKVClient, executor);
+    }
+
+    @Nonnull
+    @Override
+    protected Map<String, Object> parse(final String key, @Nonnull final String document) {
+        return PropertiesParser.parse(document);
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Single pass parser of the {@code .properties} format, as specified by {@link java.util.Properties#load(java.io.Reader)}:
+ * <ul>
+ *     <li>{@code #} and {@code !} comment lines</li>
+ *     <li>{@code =}, {@code :} or whitespace separator between the key and the value</li>
+ *     <li>line continuation with a trailing {@code \}, the leading whitespaces of the next line being ignored</li>
+ *     <li>{@code \t}, {@code \n}, {@code \r}, {@code \f} and {@code \}{@code uXXXX} escapes, any other escaped
+ *     character standing for itself</li>
+ * </ul>
+ * The properties are directly put in the returned map, the last definition of a key winning, without going through a
+ * {@link java.util.Properties}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PropertiesParser {
+
+    @Nonnull
+    static Map<String, Object> parse(@Nonnull final String content) {
+        final var properties = new LinkedHashMap<String, Object>();
+        // re-used for every line
+        final var key = new StringBuilder();
+        final var value = new StringBuilder();
+
+        final var length = content.length();
+        var position = 0;
+        while (position < length) {
+            // beginning of a logical line: skipping blank lines and leading whitespaces
+            var current = content.charAt(position);
+            if (isWhitespace(current) || isLineTerminator(current)) {
+                position++;
+                continue;
+            }
+            if (current == '#' || current == '!') {
+                position = endOfLine(content, position);
+                continue;
+            }
+
+            key.setLength(0);
+            value.setLength(0);
+            var inKey = true;
+            var beforeValue = false;
+            var hasSeparator = false;
+            while (position < length) {
+                current = content.charAt(position);
+                if (isLineTerminator(current)) {
+                    break;
+                }
+
+                if (current == '\\') {
+                    position++;
+                    if (position == length) {
+                        // trailing backslash at the end of the content is dropped
+                        break;
+                    }
+                    final var escaped = content.charAt(position);
+                    if (isLineTerminator(escaped)) {
+                        position = skipContinuation(content, position);
+                        continue;
+                    }
+
+                    final char unescaped;
+                    if (escaped == 'u') {
+                        unescaped = readUnicode(content, position + 1);
+                        position += 5;
+                    } else {
+                        unescaped = unescape(escaped);
+                        position++;
+                    }
+                    if (inKey) {
+                        key.append(unescaped);
+                    } else {
+                        beforeValue = false;
+                        value.append(unescaped);
+                    }
+                    continue;
+                }
+
+                if (inKey) {
+                    if (current == '=' || current == ':') {
+                        hasSeparator = true;
+                        inKey = false;
+                        beforeValue = true;
+                    } else if (isWhitespace(current)) {
+                        inKey = false;
+                        beforeValue = true;
+                    } else {
+                        key.append(current);
+                    }
+                    position++;
+                    continue;
+                }
+
+                if (beforeValue) {
+                    if (isWhitespace(current)) {
+                        position++;
+                        continue;
+                    }
+                    // only one separator is allowed after the whitespaces following the key
+                    if (!hasSeparator && (current == '=' || current == ':')) {
+                        hasSeparator = true;
+                        position++;
+                        continue;
+                    }
+                    beforeValue = false;
+                }
+
+                value.append(current);
+                position++;
+            }
+
+            properties.put(key.toString(), value.toString());
+        }
+
+        return properties;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private static int endOfLine(final String content, int position) {
+        while (position < content.length() && !isLineTerminator(content.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @param position position of the escaped line terminator
+     * @return the position of the first non whitespace character of the next line
+     */
+    private static int skipContinuation(final String content, int position) {
+        if (content.charAt(position) == '\r' && position + 1 < content.length() && content.charAt(position + 1) == '\n') {
+            position++;
+        }
+        position++;
+        while (position < content.length() && isWhitespace(content.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static char readUnicode(final String content, final int start) {
+        if (start + 4 > content.length()) {
+            throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+        }
+        var unicode = 0;
+        for (int i = start; i < start + 4; i++) {
+            final var digit = Character.digit(content.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+            }
+            unicode = (unicode << 4) + digit;
+        }
+        return (char) unicode;
+    }
+
+    private static char unescape(final char escaped) {
+        return switch (escaped) {
+            case 't' -> '\t';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 'f' -> '\f';
+            default -> escaped;
+        };
+    }
+}
@@ -0,0 +1,598 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable content of a key, as held by the snapshots and backing its property source.
+ * <p>
+ * The entries are stored in a hash array mapped trie: nodes of up to 32 slots, indexed by 5 bits of the hash of the
+ * keys, each slot holding an entry or a sub-node. As in the previous flat layout, the entries are not objects of their
+ * own but stored in two arrays of keys and values inside each node, the sub-nodes in a third one, so that an entry
+ * costs two references plus its share of the few nodes, close to the open-addressed table it replaces and far less
+ * than the nodes of a {@link HashMap}. A new version built from the previous one, see {@link #of(Map, Map)}, only
+ * copies the path to the changed entries and shares every other node with it, so that
+ * {@link #difference(PropertySnapshot, PropertySnapshot)} skips the shared nodes by identity and costs in proportion
+ * of the changes, not of the size of the content.
+ * <p>
+ * The keys are interned, and the unchanged entries keep their key and value instances from one version to the next.
+ */
+final class PropertySnapshot extends AbstractMap<String, Object> {
+
+    // shared by all the keys and versions, weak to not retain the removed properties
+    private static final Interner<String> KEYS = Interners.newWeakInterner();
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // maximum depth of the trie, 7 levels of 5 bits covering the 32 bits of the hash
+    private static final int MAX_SHIFT = 32;
+
+    private static final String[] NO_KEYS = new String[0];
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    // returned by a lookup of a missing key, the values being nullable
+    private static final Object ABSENT = new Object();
+
+    static final PropertySnapshot EMPTY = new PropertySnapshot(new BitmapNode(0, 0, NO_KEYS, NO_VALUES, NO_NODES), 0);
+
+    // always a BitmapNode, a sub-node holding at least 2 entries
+    private final Node root;
+    private final int size;
+
+    private sealed interface Node permits BitmapNode, CollisionNode {
+
+        String[] keys();
+
+        Object[] values();
+    }
+
+    /**
+     * @param dataMap bit i set when slot i holds an entry, the entries being packed in order in keys and values
+     * @param nodeMap bit i set when slot i holds a sub-node, the sub-nodes being packed in order in nodes
+     */
+    private record BitmapNode(int dataMap, int nodeMap, String[] keys, Object[] values, Node[] nodes) implements Node {
+    }
+
+    /**
+     * Entries of different keys with the same hash, below the last level of the trie
+     */
+    private record CollisionNode(int hash, String[] keys, Object[] values) implements Node {
+    }
+
+    private PropertySnapshot(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the properties as a snapshot, the same instance if already one
+     */
+    @Nonnull
+    static PropertySnapshot of(@Nonnull final Map<String, Object> properties) {
+        if (properties instanceof PropertySnapshot snapshot) {
+            return snapshot;
+        }
+        return of(properties, null);
+    }
+
+    /**
+     * @param previous previous version of the content, from which the unchanged nodes are shared when a snapshot
+     * @throws NullPointerException when a key is null
+     */
+    @Nonnull
+    static PropertySnapshot of(@Nonnull final Map<String, Object> properties, @Nullable final Map<String, Object> previous) {
+        if (properties.isEmpty()) {
+            return EMPTY;
+        }
+        if (!(previous instanceof PropertySnapshot previousSnapshot) || previousSnapshot.isEmpty()) {
+            final var keys = new String[properties.size()];
+            final var values = new Object[keys.length];
+            var i = 0;
+            for (final var entry : properties.entrySet()) {
+                keys[i] = KEYS.intern(Objects.requireNonNull(entry.getKey(), "key"));
+                values[i] = entry.getValue();
+                i++;
+            }
+            return new PropertySnapshot(build(keys, values), keys.length);
+        }
+
+        final var removedKeys = new ArrayList<String>();
+        forEachEntry(previousSnapshot.root, (key, value) -> {
+            if (!properties.containsKey(key)) {
+                removedKeys.add(key);
+            }
+        });
+        var root = previousSnapshot.root;
+        for (final var key : removedKeys) {
+            root = remove(root, 0, hash(key), key);
+        }
+        var size = previousSnapshot.size - removedKeys.size();
+        for (final var entry : properties.entrySet()) {
+            final var key = Objects.requireNonNull(entry.getKey(), "key");
+            final var hash = hash(key);
+            final var existing = lookup(root, hash, key);
+            if (existing == ABSENT) {
+                root = put(root, 0, hash, KEYS.intern(key), entry.getValue());
+                size++;
+            } else if (!Objects.equals(existing, entry.getValue())) {
+                // the stored key instance being kept
+                root = put(root, 0, hash, key, entry.getValue());
+            }
+        }
+        return root == previousSnapshot.root ? previousSnapshot : new PropertySnapshot(root, size);
+    }
+
+    /**
+     * Compares the two versions node by node, the nodes shared by both being skipped without looking into them.
+     */
+    @Nonnull
+    static MapDifference<String, Object> difference(@Nonnull final PropertySnapshot left, @Nonnull final PropertySnapshot right) {
+        final var changes = new Changes(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        if (left.root != right.root) {
+            diff(left.root, right.root, changes);
+        }
+        return new Difference(left, right, changes.onlyOnLeft(), changes.onlyOnRight(), changes.differing());
+    }
+
+    private static int hash(final String key) {
+        final var hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int index(final int hash, final int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    /**
+     * @return the position in the packed array of the slot of the bit
+     */
+    private static int position(final int bitmap, final int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static Node build(final String[] keys, final Object[] values) {
+        // the entries sorted by their path in the trie, so that the entries of each node are contiguous
+        final var paths = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            paths[i] = (Integer.toUnsignedLong(path(hash(keys[i]))) << 31) | i;
+        }
+        Arrays.sort(paths);
+        return build(paths, 0, paths.length, 0, keys, values);
+    }
+
+    /**
+     * @return the hash with the bits of the first level first, then the ones of the next levels
+     */
+    private static int path(final int hash) {
+        var path = 0;
+        for (var shift = 0; shift < MAX_SHIFT; shift += BITS) {
+            final var width = Math.min(BITS, MAX_SHIFT - shift);
+            path = (path << width) | ((hash >>> shift) & ((1 << width) - 1));
+        }
+        return path;
+    }
+
+    private static int entry(final long path) {
+        return (int) (path & Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param paths the entries sorted by path, from which the range of the node is built
+     */
+    private static Node build(final long[] paths, final int from, final int to, final int shift,
+            final String[] keys, final Object[] values) {
+        if (shift >= MAX_SHIFT) {
+            // all the bits of the hash consumed, the keys all have the same hash
+            final var collisionKeys = new String[to - from];
+            final var collisionValues = new Object[collisionKeys.length];
+            for (int i = from; i < to; i++) {
+                collisionKeys[i - from] = keys[entry(paths[i])];
+                collisionValues[i - from] = values[entry(paths[i])];
+            }
+            return new CollisionNode(hash(collisionKeys[0]), collisionKeys, collisionValues);
+        }
+        var dataMap = 0;
+        var nodeMap = 0;
+        for (int start = from, end; start < to; start = end) {
+            end = slotEnd(paths, start, to, shift, keys);
+            final var bit = 1 << index(hash(keys[entry(paths[start])]), shift);
+            if (end - start == 1) {
+                dataMap |= bit;
+            } else {
+                nodeMap |= bit;
+            }
+        }
+
+        final var nodeKeys = dataMap == 0 ? NO_KEYS : new String[Integer.bitCount(dataMap)];
+        final var nodeValues = dataMap == 0 ? NO_VALUES : new Object[nodeKeys.length];
+        final var nodes = nodeMap == 0 ? NO_NODES : new Node[Integer.bitCount(nodeMap)];
+        var dataPosition = 0;
+        var nodePosition = 0;
+        for (int start = from, end; start < to; start = end) {
+            end = slotEnd(paths, start, to, shift, keys);
+            if (end - start == 1) {
+                nodeKeys[dataPosition] = keys[entry(paths[start])];
+                nodeValues[dataPosition++] = values[entry(paths[start])];
+            } else {
+                nodes[nodePosition++] = build(paths, start, end, shift + BITS, keys, values);
+            }
+        }
+        return new BitmapNode(dataMap, nodeMap, nodeKeys, nodeValues, nodes);
+    }
+
+    /**
+     * @return the end of the range of the entries in the same slot as the one at start
+     */
+    private static int slotEnd(final long[] paths, final int start, final int to, final int shift, final String[] keys) {
+        final var index = index(hash(keys[entry(paths[start])]), shift);
+        var end = start + 1;
+        while (end < to && index(hash(keys[entry(paths[end])]), shift) == index) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the value of the key, {@link #ABSENT} when missing
+     */
+    private static Object lookup(final Node root, final int hash, final String key) {
+        var node = root;
+        var shift = 0;
+        while (node instanceof BitmapNode bitmapNode) {
+            final var bit = 1 << index(hash, shift);
+            if ((bitmapNode.dataMap() & bit) != 0) {
+                final var position = position(bitmapNode.dataMap(), bit);
+                final var candidate = bitmapNode.keys()[position];
+                return candidate == key || candidate.equals(key) ? bitmapNode.values()[position] : ABSENT;
+            }
+            if ((bitmapNode.nodeMap() & bit) == 0) {
+                return ABSENT;
+            }
+            node = bitmapNode.nodes()[position(bitmapNode.nodeMap(), bit)];
+            shift += BITS;
+        }
+        final var collision = (CollisionNode) node;
+        if (collision.hash() == hash) {
+            for (int i = 0; i < collision.keys().length; i++) {
+                if (collision.keys()[i].equals(key)) {
+                    return collision.values()[i];
+                }
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @return the node with the entry added or its value replaced, copying only the nodes on its path
+     */
+    private static Node put(final Node node, final int shift, final int hash, final String key, final Object value) {
+        if (node instanceof CollisionNode collision) {
+            // only below the last level, where all the keys have the same hash
+            for (int i = 0; i < collision.keys().length; i++) {
+                if (collision.keys()[i].equals(key)) {
+                    final var values = collision.values().clone();
+                    values[i] = value;
+                    return new CollisionNode(hash, collision.keys(), values);
+                }
+            }
+            return new CollisionNode(hash,
+                    inserted(collision.keys(), collision.keys().length, key),
+                    inserted(collision.values(), collision.values().length, value));
+        }
+        final var bitmapNode = (BitmapNode) node;
+        final var bit = 1 << index(hash, shift);
+        if ((bitmapNode.dataMap() & bit) != 0) {
+            final var position = position(bitmapNode.dataMap(), bit);
+            final var existingKey = bitmapNode.keys()[position];
+            if (existingKey.equals(key)) {
+                final var values = bitmapNode.values().clone();
+                values[position] = value;
+                return new BitmapNode(bitmapNode.dataMap(), bitmapNode.nodeMap(), bitmapNode.keys(), values, bitmapNode.nodes());
+            }
+            // both entries moved down to a new sub-node
+            final var child = pair(hash(existingKey), existingKey, bitmapNode.values()[position], hash, key, value, shift + BITS);
+            return new BitmapNode(bitmapNode.dataMap() & ~bit, bitmapNode.nodeMap() | bit,
+                    without(bitmapNode.keys(), position),
+                    without(bitmapNode.values(), position),
+                    inserted(bitmapNode.nodes(), position(bitmapNode.nodeMap(), bit), child));
+        }
+        if ((bitmapNode.nodeMap() & bit) != 0) {
+            final var nodes = bitmapNode.nodes().clone();
+            final var position = position(bitmapNode.nodeMap(), bit);
+            nodes[position] = put(nodes[position], shift + BITS, hash, key, value);
+            return new BitmapNode(bitmapNode.dataMap(), bitmapNode.nodeMap(), bitmapNode.keys(), bitmapNode.values(), nodes);
+        }
+        final var position = position(bitmapNode.dataMap(), bit);
+        return new BitmapNode(bitmapNode.dataMap() | bit, bitmapNode.nodeMap(),
+                inserted(bitmapNode.keys(), position, key),
+                inserted(bitmapNode.values(), position, value),
+                bitmapNode.nodes());
+    }
+
+    /**
+     * @return a node holding both entries of different keys
+     */
+    private static Node pair(final int firstHash, final String firstKey, final Object firstValue,
+            final int secondHash, final String secondKey, final Object secondValue, final int shift) {
+        if (shift >= MAX_SHIFT) {
+            return new CollisionNode(firstHash, new String[]{firstKey, secondKey}, new Object[]{firstValue, secondValue});
+        }
+        final var firstIndex = index(firstHash, shift);
+        final var secondIndex = index(secondHash, shift);
+        if (firstIndex == secondIndex) {
+            final var child = pair(firstHash, firstKey, firstValue, secondHash, secondKey, secondValue, shift + BITS);
+            return new BitmapNode(0, 1 << firstIndex, NO_KEYS, NO_VALUES, new Node[]{child});
+        }
+        final var dataMap = (1 << firstIndex) | (1 << secondIndex);
+        return firstIndex < secondIndex
+                ? new BitmapNode(dataMap, 0, new String[]{firstKey, secondKey}, new Object[]{firstValue, secondValue}, NO_NODES)
+                : new BitmapNode(dataMap, 0, new String[]{secondKey, firstKey}, new Object[]{secondValue, firstValue}, NO_NODES);
+    }
+
+    /**
+     * @return the node without the key, the same instance when missing
+     */
+    private static Node remove(final Node node, final int shift, final int hash, final String key) {
+        if (node instanceof CollisionNode collision) {
+            for (int i = 0; i < collision.keys().length; i++) {
+                if (collision.keys()[i].equals(key)) {
+                    return new CollisionNode(collision.hash(), without(collision.keys(), i), without(collision.values(), i));
+                }
+            }
+            return collision;
+        }
+        final var bitmapNode = (BitmapNode) node;
+        final var bit = 1 << index(hash, shift);
+        if ((bitmapNode.dataMap() & bit) != 0) {
+            final var position = position(bitmapNode.dataMap(), bit);
+            if (!bitmapNode.keys()[position].equals(key)) {
+                return bitmapNode;
+            }
+            return new BitmapNode(bitmapNode.dataMap() & ~bit, bitmapNode.nodeMap(),
+                    without(bitmapNode.keys(), position),
+                    without(bitmapNode.values(), position),
+                    bitmapNode.nodes());
+        }
+        if ((bitmapNode.nodeMap() & bit) == 0) {
+            return bitmapNode;
+        }
+        final var position = position(bitmapNode.nodeMap(), bit);
+        final var child = bitmapNode.nodes()[position];
+        final var nextChild = remove(child, shift + BITS, hash, key);
+        if (nextChild == child) {
+            return bitmapNode;
+        }
+        if (isSingleEntry(nextChild)) {
+            // moved up as an entry, keeping the trie as shallow as when built
+            final var dataPosition = position(bitmapNode.dataMap(), bit);
+            return new BitmapNode(bitmapNode.dataMap() | bit, bitmapNode.nodeMap() & ~bit,
+                    inserted(bitmapNode.keys(), dataPosition, nextChild.keys()[0]),
+                    inserted(bitmapNode.values(), dataPosition, nextChild.values()[0]),
+                    without(bitmapNode.nodes(), position));
+        }
+        final var nodes = bitmapNode.nodes().clone();
+        nodes[position] = nextChild;
+        return new BitmapNode(bitmapNode.dataMap(), bitmapNode.nodeMap(), bitmapNode.keys(), bitmapNode.values(), nodes);
+    }
+
+    private static boolean isSingleEntry(final Node node) {
+        return node.keys().length == 1 && (!(node instanceof BitmapNode bitmapNode) || bitmapNode.nodeMap() == 0);
+    }
+
+    private static <T> T[] inserted(final T[] array, final int position, final T element) {
+        final var copy = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, position, copy, position + 1, array.length - position);
+        copy[position] = element;
+        return copy;
+    }
+
+    private static <T> T[] without(final T[] array, final int position) {
+        final var copy = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, position + 1, copy, position, copy.length - position);
+        return copy;
+    }
+
+    private static void diff(final Node left, final Node right, final Changes changes) {
+        if (!(left instanceof BitmapNode leftNode) || !(right instanceof BitmapNode rightNode)) {
+            // keys with the same hash, rarely more than a few
+            diffEntries(action -> forEachEntry(left, action), action -> forEachEntry(right, action), changes);
+            return;
+        }
+        final var bitmap = leftNode.dataMap() | leftNode.nodeMap() | rightNode.dataMap() | rightNode.nodeMap();
+        for (var remaining = bitmap; remaining != 0; remaining &= remaining - 1) {
+            final var bit = Integer.lowestOneBit(remaining);
+            if ((leftNode.nodeMap() & bit) != 0 && (rightNode.nodeMap() & bit) != 0) {
+                final var leftChild = leftNode.nodes()[position(leftNode.nodeMap(), bit)];
+                final var rightChild = rightNode.nodes()[position(rightNode.nodeMap(), bit)];
+                if (leftChild != rightChild) {
+                    diff(leftChild, rightChild, changes);
+                }
+            } else if ((leftNode.dataMap() & bit) != 0 && (rightNode.dataMap() & bit) != 0) {
+                final var leftPosition = position(leftNode.dataMap(), bit);
+                final var rightPosition = position(rightNode.dataMap(), bit);
+                final var leftKey = leftNode.keys()[leftPosition];
+                final var rightKey = rightNode.keys()[rightPosition];
+                if (leftKey == rightKey || leftKey.equals(rightKey)) {
+                    changes.compare(rightKey, leftNode.values()[leftPosition], rightNode.values()[rightPosition]);
+                } else {
+                    changes.onlyOnLeft().put(leftKey, leftNode.values()[leftPosition]);
+                    changes.onlyOnRight().put(rightKey, rightNode.values()[rightPosition]);
+                }
+            } else {
+                // an entry on one side moved down to a sub-node on the other, or a slot used by only one side
+                diffEntries(action -> forEachEntry(leftNode, bit, action), action -> forEachEntry(rightNode, bit, action), changes);
+            }
+        }
+    }
+
+    private static void diffEntries(final Consumer<BiConsumer<String, Object>> left,
+            final Consumer<BiConsumer<String, Object>> right,
+            final Changes changes) {
+        final var leftEntries = new HashMap<String, Object>();
+        left.accept(leftEntries::put);
+        right.accept((key, value) -> {
+            if (leftEntries.containsKey(key)) {
+                changes.compare(key, leftEntries.remove(key), value);
+            } else {
+                changes.onlyOnRight().put(key, value);
+            }
+        });
+        changes.onlyOnLeft().putAll(leftEntries);
+    }
+
+    /**
+     * Visits the entry or the entries of the sub-node of the slot of the bit
+     */
+    private static void forEachEntry(final BitmapNode node, final int bit, final BiConsumer<String, Object> action) {
+        if ((node.dataMap() & bit) != 0) {
+            final var position = position(node.dataMap(), bit);
+            action.accept(node.keys()[position], node.values()[position]);
+        } else if ((node.nodeMap() & bit) != 0) {
+            forEachEntry(node.nodes()[position(node.nodeMap(), bit)], action);
+        }
+    }
+
+    private static void forEachEntry(final Node node, final BiConsumer<String, Object> action) {
+        for (int i = 0; i < node.keys().length; i++) {
+            action.accept(node.keys()[i], node.values()[i]);
+        }
+        if (node instanceof BitmapNode bitmapNode) {
+            for (final var child : bitmapNode.nodes()) {
+                forEachEntry(child, action);
+            }
+        }
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public Object getOrDefault(final Object key, final Object defaultValue) {
+        if (!(key instanceof String string)) {
+            return defaultValue;
+        }
+        final var value = lookup(root, hash(string), string);
+        return value == ABSENT ? defaultValue : value;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof String string && lookup(root, hash(string), string) != ABSENT;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super Object> action) {
+        forEachEntry(root, action::accept);
+    }
+
+    @Override
+    @Nonnull
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            @Nonnull
+            public Iterator<Entry<String, Object>> iterator() {
+                final var entries = new ArrayList<Entry<String, Object>>(size);
+                forEachEntry(root, (key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private record Changes(Map<String, Object> onlyOnLeft,
+                           Map<String, Object> onlyOnRight,
+                           Map<String, MapDifference.ValueDifference<Object>> differing) {
+
+        void compare(final String key, final Object leftValue, final Object rightValue) {
+            if (leftValue != rightValue && !Objects.equals(leftValue, rightValue)) {
+                differing.put(key, new DifferingValue(leftValue, rightValue));
+            }
+        }
+    }
+
+    private record DifferingValue(Object leftValue, Object rightValue) implements MapDifference.ValueDifference<Object> {
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof MapDifference.ValueDifference<?> other
+                    && Objects.equals(leftValue, other.leftValue())
+                    && Objects.equals(rightValue, other.rightValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(leftValue, rightValue);
+        }
+    }
+
+    /**
+     * Same content as the one computed by {@link Maps#difference(Map, Map)}, the entries in common being a view
+     * computed on demand, as the watcher never reads them.
+     */
+    private record Difference(PropertySnapshot left,
+                              PropertySnapshot right,
+                              Map<String, Object> entriesOnlyOnLeft,
+                              Map<String, Object> entriesOnlyOnRight,
+                              Map<String, MapDifference.ValueDifference<Object>> entriesDiffering) implements MapDifference<String, Object> {
+
+        @Override
+        public boolean areEqual() {
+            return entriesOnlyOnLeft.isEmpty() && entriesOnlyOnRight.isEmpty() && entriesDiffering.isEmpty();
+        }
+
+        @Override
+        public Map<String, Object> entriesInCommon() {
+            return Maps.filterKeys(right, key -> left.containsKey(key) && !entriesDiffering.containsKey(key));
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof MapDifference<?, ?> other
+                    && entriesOnlyOnLeft.equals(other.entriesOnlyOnLeft())
+                    && entriesOnlyOnRight.equals(other.entriesOnlyOnRight())
+                    && entriesInCommon().equals(other.entriesInCommon())
+                    && entriesDiffering.equals(other.entriesDiffering());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entriesOnlyOnLeft, entriesOnlyOnRight, entriesInCommon(), entriesDiffering);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.annotation.Nonnull;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+
+/**
+ * How the {@link Environment} is updated once the content of a Consul-backed {@link PropertySource} has changed
+ */
+public enum PropertySourceUpdateStrategy {
+
+    /**
+     * Re-add every property source of the environment, sorted by order, to keep precedence.
+     */
+    REBUILD {
+        @Override
+        void update(@Nonnull final Environment environment,
+                @Nonnull final String propertySourceName,
+                @Nonnull final Map<String, Object> nextProperties,
+                @Nonnull final Set<String> changedKeys) {
+            final var updatedPropertySources = new ArrayList<PropertySource>();
+            for (final var propertySource : environment.getPropertySources()) {
+                if (propertySource.getName().equals(propertySourceName)) {
+                    // creating a new PropertySource with new values but keeping the order
+                    updatedPropertySources.add(PropertySource.of(propertySourceName, nextProperties, propertySource.getOrder()));
+                } else {
+                    updatedPropertySources.add(propertySource);
+                }
+            }
+
+            updatedPropertySources.stream()
+                    // /!\ re-setting all the propertySources sorted by Order, to keep precedence
+                    .sorted(Comparator.comparing(PropertySource::getOrder))
+                    .forEach(environment::addPropertySource);
+        }
+    },
+
+    /**
+     * Replace only the updated property source. Re-adding a source overwrites the resolved value of each of its keys,
+     * whatever its order, so the sources of higher precedence defining one of the overwritten keys are re-added after
+     * it, in ascending order, their own keys being in turn overwritten for the sources above them. A removed key is not
+     * overwritten by the updated source, so the sources of lower precedence defining it are re-added before it.
+     */
+    PATCH {
+        @Override
+        void update(@Nonnull final Environment environment,
+                @Nonnull final String propertySourceName,
+                @Nonnull final Map<String, Object> nextProperties,
+                @Nonnull final Set<String> changedKeys) {
+            final var propertySources = environment.getPropertySources();
+            final var current = propertySources.stream()
+                    .filter(propertySource -> propertySource.getName().equals(propertySourceName))
+                    .findFirst();
+            if (current.isEmpty()) {
+                return;
+            }
+
+            final var order = current.get().getOrder();
+            final var sortedPropertySources = propertySources.stream()
+                    .filter(propertySource -> !propertySource.getName().equals(propertySourceName))
+                    .sorted(Comparator.comparing(PropertySource::getOrder))
+                    .toList();
+
+            // the removed keys get back the value of the lower sources
+            final var overwrittenKeys = new HashSet<>(changedKeys);
+            overwrittenKeys.removeAll(nextProperties.keySet());
+            reApply(environment, sortedPropertySources.stream()
+                    .filter(propertySource -> propertySource.getOrder() <= order)
+                    .toList(), overwrittenKeys);
+
+            environment.addPropertySource(PropertySource.of(propertySourceName, nextProperties, order));
+
+            // the removed keys included, as a higher source might define them too
+            overwrittenKeys.addAll(nextProperties.keySet());
+            overwrittenKeys.addAll(changedKeys);
+            reApply(environment, sortedPropertySources.stream()
+                    .filter(propertySource -> propertySource.getOrder() > order)
+                    .toList(), overwrittenKeys);
+        }
+
+        /**
+         * Re-adds the sources defining one of the overwritten keys, whose own keys are then overwritten as well
+         */
+        private static void reApply(final Environment environment, final List<PropertySource> sortedPropertySources,
+                final Set<String> overwrittenKeys) {
+            for (final var propertySource : sortedPropertySources) {
+                if (definesAny(propertySource, overwrittenKeys)) {
+                    environment.addPropertySource(propertySource);
+                    propertySource.forEach(overwrittenKeys::add);
+                }
+            }
+        }
+
+        private static boolean definesAny(final PropertySource propertySource, final Set<String> keys) {
+            for (final var key : propertySource) {
+                if (keys.contains(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * @param environment        environment to update
+     * @param propertySourceName name of the updated property source
+     * @param nextProperties     new content of the property source
+     * @param changedKeys        keys added, removed or modified by this update
+     */
+    abstract void update(@Nonnull final Environment environment,
+            @Nonnull final String propertySourceName,
+            @Nonnull final Map<String, Object> nextProperties,
+            @Nonnull final Set<String> changedKeys);
+}
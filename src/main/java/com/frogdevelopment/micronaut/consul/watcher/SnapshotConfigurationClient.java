@@ -0,0 +1,62 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.reactivestreams.Publisher;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.config.ConfigurationClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decorates the {@link ConfigurationClient} of Consul, providing at bootstrap the property sources saved by the
+ * {@link SnapshotStore} when Consul fails or is slow to answer, so that the application boots with its last known
+ * configuration, under the same names and orders as the ones read from Consul.
+ * <p>
+ * The watcher then reconciles them with Consul in the background, blocking from the saved index of each key, see
+ * {@link AbstractConsulKVWatcher#start()}. Without snapshot, Consul is waited for as usual.
+ */
+@Slf4j
+class SnapshotConfigurationClient implements ConfigurationClient {
+
+    private final ConfigurationClient delegate;
+    private final Path snapshotPath;
+    private final Duration timeout;
+
+    SnapshotConfigurationClient(final ConfigurationClient delegate, final Path snapshotPath, final Duration timeout) {
+        this.delegate = delegate;
+        this.snapshotPath = snapshotPath;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Publisher<PropertySource> getPropertySources(final Environment environment) {
+        return Flux.defer(() -> {
+            final var entries = SnapshotStore.read(snapshotPath);
+            if (entries.isEmpty()) {
+                return Flux.from(delegate.getPropertySources(environment));
+            }
+            final var snapshot = Flux.fromIterable(entries.values())
+                    .map(entry -> PropertySource.of(entry.propertySourceName(), entry.properties(), entry.order()));
+            // all or nothing, not to mix the sources of Consul with older ones
+            return Flux.defer(() -> delegate.getPropertySources(environment))
+                    .collectList()
+                    .timeout(timeout)
+                    .flatMapMany(Flux::fromIterable)
+                    .onErrorResume(error -> {
+                        log.warn("Consul configuration not available, booting with {} property sources from snapshot [{}]",
+                                entries.size(), snapshotPath, error);
+                        return snapshot;
+                    });
+        });
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+}
@@ -0,0 +1,43 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import jakarta.inject.Singleton;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.discovery.config.ConfigurationClient;
+import io.micronaut.discovery.consul.config.ConsulConfigurationClient;
+
+/**
+ * Replaces the {@link ConsulConfigurationClient} by a {@link SnapshotConfigurationClient} falling back to the snapshot,
+ * when {@link WatcherConfiguration#getSnapshotPath()} is set.
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = WatcherConfiguration.PREFIX + ".snapshot-path")
+class SnapshotConfigurationClientDecorator implements BeanCreatedEventListener<ConfigurationClient> {
+
+    private final Path snapshotPath;
+    private final Duration timeout;
+
+    SnapshotConfigurationClientDecorator(@Property(name = WatcherConfiguration.PREFIX + ".snapshot-path") final String snapshotPath,
+            @Value("${" + WatcherConfiguration.PREFIX + ".snapshot-boot-timeout:2s}") final Duration timeout) {
+        this.snapshotPath = Path.of(snapshotPath);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ConfigurationClient onCreated(final BeanCreatedEvent<ConfigurationClient> event) {
+        final var configurationClient = event.getBean();
+        if (configurationClient instanceof ConsulConfigurationClient) {
+            return new SnapshotConfigurationClient(configurationClient, snapshotPath, timeout);
+        }
+        return configurationClient;
+    }
+}
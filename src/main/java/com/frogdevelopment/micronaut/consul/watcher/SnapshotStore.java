@@ -0,0 +1,136 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import jakarta.annotation.Nonnull;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * On-disk copy of the last applied configuration of every watched key, so that the application can boot from it
+ * without waiting for Consul, see {@link SnapshotConfigurationClient}.
+ * <p>
+ * The whole content is written to a temporary file then moved over the previous one, so that a crash while writing
+ * never leaves a truncated snapshot behind. Saving is best-effort: a failure is only logged, the configuration being
+ * applied anyway.
+ */
+@Slf4j
+class SnapshotStore {
+
+    private static final int VERSION = 1;
+
+    private final Path path;
+    // guarded by this
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param propertySourceName name of the property source of the key
+     * @param order              order of the property source
+     * @param index              Consul index of the content, 0 when unknown
+     * @param properties         content of the key
+     */
+    record Entry(String propertySourceName, int order, long index, Map<String, Object> properties) {
+    }
+
+    SnapshotStore(final Path path) {
+        this.path = path;
+        this.entries = new LinkedHashMap<>(read(path));
+    }
+
+    /**
+     * @return the entries by key, empty when the snapshot does not exist or can not be read
+     */
+    @Nonnull
+    static Map<String, Entry> read(final Path path) {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyMap();
+        }
+        try {
+            final var json = new JsonObject(Files.readString(path, StandardCharsets.UTF_8));
+            if (json.getInteger("version", 0) != VERSION) {
+                log.warn("Ignoring snapshot [{}] of unsupported version {}", path, json.getValue("version"));
+                return Collections.emptyMap();
+            }
+            final var entries = new LinkedHashMap<String, Entry>();
+            final var keys = json.getJsonObject("keys", new JsonObject());
+            for (final var key : keys.fieldNames()) {
+                final var entry = keys.getJsonObject(key);
+                entries.put(key, new Entry(entry.getString("propertySource"),
+                        entry.getInteger("order", 0),
+                        entry.getLong("index", 0L),
+                        entry.getJsonObject("properties", new JsonObject()).getMap()));
+            }
+            return entries;
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Unable to read snapshot [{}], ignoring it", path, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    synchronized Optional<Entry> get(final String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    synchronized void put(final String key, final Entry entry) {
+        final var previous = entries.put(key, entry);
+        if (!write()) {
+            // keeping the entries as on disk, otherwise an entry that can not be encoded would fail all the next writes
+            if (previous == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, previous);
+            }
+        }
+    }
+
+    synchronized void remove(final String key) {
+        if (entries.remove(key) != null) {
+            write();
+        }
+    }
+
+    /**
+     * @return false when the snapshot could not be written
+     */
+    private boolean write() {
+        final var keys = new JsonObject();
+        entries.forEach((key, entry) -> keys.put(key, new JsonObject()
+                .put("propertySource", entry.propertySourceName())
+                .put("order", entry.order())
+                .put("index", entry.index())
+                .put("properties", new JsonObject(new LinkedHashMap<>(entry.properties())))));
+        final var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            // failing on the values not supported by JSON, ie. a java.util.Date parsed from a YAML timestamp
+            final var content = new JsonObject()
+                    .put("version", VERSION)
+                    .put("keys", keys)
+                    .encode();
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            // the configuration is still applied, only the next boot might be slower
+            log.warn("Unable to write snapshot [{}]", path, e);
+            return false;
+        }
+    }
+}
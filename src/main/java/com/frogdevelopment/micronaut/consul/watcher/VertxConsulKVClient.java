@@ -0,0 +1,173 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+
+/**
+ * {@link ConsulKVClient} running the queries on the vert.x event loop through a single HTTP connection pool, see
+ * {@link WatcherEngine#VERTX}.
+ * <p>
+ * The vert.x instance is only resolved, or created, on the first query or timer, ie. when the watcher starts.
+ * <p>
+ * As each blocking query holds a connection while waiting, the pool is grown when there are more watches than
+ * connections, see {@link #reserveConnections(int)}.
+ */
+@Slf4j
+class VertxConsulKVClient implements ConsulKVClient {
+
+    private final Supplier<Vertx> vertxSupplier;
+    private final boolean ownsVertx;
+    private final ConsulClientOptions consulClientOptions;
+
+    // set on first use
+    private volatile Vertx vertx;
+    private volatile WebClient webClient;
+    // guarded by this
+    private boolean closed;
+    private int poolSize;
+    // replaced by a larger pool, closed with the client so that their pending queries complete meanwhile
+    private final List<WebClient> retiredWebClients = new ArrayList<>();
+
+    /**
+     * @param vertxSupplier called once, on first use
+     * @param ownsVertx     whether the vert.x instance is closed with the client, false when shared with the application
+     */
+    VertxConsulKVClient(final Supplier<Vertx> vertxSupplier, final boolean ownsVertx, final ConsulClientOptions consulClientOptions) {
+        this.vertxSupplier = vertxSupplier;
+        this.ownsVertx = ownsVertx;
+        this.consulClientOptions = consulClientOptions;
+        this.poolSize = consulClientOptions.getMaxPoolSize();
+    }
+
+    VertxConsulKVClient(final Vertx vertx, final ConsulClientOptions consulClientOptions) {
+        this(() -> vertx, false, consulClientOptions);
+    }
+
+    @Override
+    public Future<Response<KeyValue>> getValue(final String key, final BlockingQueryOptions options, final ConsistencyMode consistency) {
+        return request(key, options, consistency, false)
+                .send()
+                .map(response -> ConsulKVClient.toKeyValueResponse(response.statusCode(), response::getHeader, response.bodyAsString()));
+    }
+
+    @Override
+    public Future<Response<KeyValueList>> getValues(final String keyPrefix, final BlockingQueryOptions options, final ConsistencyMode consistency) {
+        return request(keyPrefix, options, consistency, true)
+                .send()
+                .map(response -> ConsulKVClient.toKeyValueListResponse(response.statusCode(), response::getHeader, response.bodyAsString()));
+    }
+
+    @Override
+    public long setTimer(final long delay, final Handler<Long> handler) {
+        return vertx().setTimer(delay, handler);
+    }
+
+    @Override
+    public boolean cancelTimer(final long id) {
+        // no timer can be pending before the first use
+        final var current = vertx;
+        return current != null && current.cancelTimer(id);
+    }
+
+    @Override
+    public synchronized void reserveConnections(final int watches) {
+        if (watches <= poolSize) {
+            return;
+        }
+        // doubling at runtime, to not replace the pool on each added watch
+        final var nextPoolSize = webClient == null ? watches : Math.max(watches, poolSize * 2);
+        log.warn("{} watches need more connections than the {} of {}.max-pool-size, growing the pool to {}",
+                watches, consulClientOptions.getMaxPoolSize(), WatcherConfiguration.PREFIX, nextPoolSize);
+        poolSize = nextPoolSize;
+        if (webClient != null) {
+            retiredWebClients.add(webClient);
+            webClient = newWebClient(vertx);
+        }
+    }
+
+    /**
+     * @return the current maximum number of connections
+     */
+    synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (webClient != null) {
+            webClient.close();
+        }
+        retiredWebClients.forEach(WebClient::close);
+        retiredWebClients.clear();
+        if (ownsVertx && vertx != null) {
+            vertx.close();
+        }
+    }
+
+    /**
+     * @return whether the vert.x instance has been resolved
+     */
+    boolean isInitialized() {
+        return vertx != null;
+    }
+
+    private Vertx vertx() {
+        var current = vertx;
+        if (current == null) {
+            initialize();
+            current = vertx;
+        }
+        return current;
+    }
+
+    private WebClient webClient() {
+        var current = webClient;
+        if (current == null) {
+            initialize();
+            current = webClient;
+        }
+        return current;
+    }
+
+    private synchronized void initialize() {
+        if (closed) {
+            throw new IllegalStateException("Client is closed");
+        }
+        if (vertx == null) {
+            final var created = vertxSupplier.get();
+            webClient = newWebClient(created);
+            // published last, see vertx()
+            vertx = created;
+        }
+    }
+
+    private WebClient newWebClient(final Vertx owner) {
+        return WebClient.create(owner, new ConsulClientOptions(consulClientOptions).setMaxPoolSize(poolSize));
+    }
+
+    private HttpRequest<Buffer> request(final String key, final BlockingQueryOptions options, final ConsistencyMode consistency,
+            final boolean recurse) {
+        final var request = webClient().get(KV_PATH + key);
+        ConsulKVClient.queryParams(consulClientOptions, options, consistency, recurse).forEach(request::addQueryParam);
+        if (consulClientOptions.getAclToken() != null) {
+            request.putHeader(TOKEN_HEADER, consulClientOptions.getAclToken());
+        }
+        return request;
+    }
+}
@@ -0,0 +1,177 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+import jakarta.annotation.Nullable;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.scheduling.TaskExecutors;
+import io.vertx.ext.consul.ConsistencyMode;
+
+/**
+ * Configuration of the Consul KV watcher, bound to {@value #PREFIX}
+ */
+@Getter
+@Setter
+@ConfigurationProperties(WatcherConfiguration.PREFIX)
+public class WatcherConfiguration {
+
+    public static final String PREFIX = "consul.watcher";
+
+    /**
+     * When enabled, a single blocking query on the configuration root is used to watch every key, instead of one
+     * blocking query per key.
+     */
+    private boolean multiplexed = false;
+
+    /**
+     * How the environment is updated when a change is detected.
+     */
+    private PropertySourceUpdateStrategy updateStrategy = PropertySourceUpdateStrategy.REBUILD;
+
+    /**
+     * Maximum number of parsed contents kept in memory, one per watched key, to avoid parsing again the previous
+     * content of a key on each change.
+     */
+    private long maxSnapshots = 100;
+
+    /**
+     * Window during which the changes of all the watched keys are merged into a single update of the environment and a
+     * single {@link io.micronaut.runtime.context.scope.refresh.RefreshEvent}. Changes are applied immediately when zero.
+     */
+    private Duration debounce = Duration.ZERO;
+
+    /**
+     * Name of the executor handling the changes out of the threads of the engine, see
+     * {@link io.micronaut.scheduling.TaskExecutors}. Changes of a same key are handled one after the other, while
+     * changes of different keys are handled in parallel.
+     */
+    private String executor = TaskExecutors.IO;
+
+    /**
+     * Maximum number of HTTP connections to Consul, shared by all the watches. As each blocking query holds a connection
+     * while waiting, the pool is grown, with a warning, when there are more watches than connections.
+     */
+    private int maxPoolSize = 10;
+
+    /**
+     * Whether the HTTP connections to Consul are kept alive between two blocking queries.
+     */
+    private boolean keepAlive = true;
+
+    /**
+     * Time after which an unused kept alive connection is closed.
+     */
+    private Duration keepAliveTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Whether the requests are pipelined on the HTTP connections to Consul. Blocking queries answered only on change,
+     * a pipelined query might wait for the previous one to complete.
+     */
+    private boolean pipelining = false;
+
+    /**
+     * Maximum duration of a blocking query, Consul answering earlier only when the watched content changes. Consul caps
+     * it to 10 minutes.
+     */
+    private Duration waitTime = Duration.ofMinutes(5);
+
+    /**
+     * Delay before retrying a failed blocking query the first time, doubling on each consecutive failure.
+     */
+    private Duration minBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Maximum delay before retrying a failed blocking query.
+     */
+    private Duration maxBackoff = Duration.ofMinutes(1);
+
+    /**
+     * How the delay before retrying a failed blocking query is randomized, to spread the retries of all the instances
+     * over time.
+     */
+    private BackoffJitter backoffJitter = BackoffJitter.FULL;
+
+    /**
+     * Number of consecutive results of a watch with an index lower than the last applied one after which the Consul
+     * index is considered as reset, ie. after a snapshot restore. Until then, such results are dropped as coming from a
+     * server lagging behind. With the {@link ConsistencyMode#STALE} mode, only the lower indexes confirmed by the leader
+     * are counted.
+     */
+    private int indexResetThreshold = 3;
+
+    /**
+     * Consistency mode of the watch queries: {@code stale} lets any server answer, spreading the load over the
+     * followers, while {@code consistent} makes the leader check its leadership before answering.
+     */
+    private ConsistencyMode consistency = ConsistencyMode.DEFAULT;
+
+    /**
+     * With the {@code stale} consistency mode, maximum time since the answering server last contacted the leader. A
+     * staler result is dropped and the query sent again to the leader. Unbounded when not set.
+     */
+    @Nullable
+    private Duration maxStaleness;
+
+    /**
+     * Maximum size, in characters, of a document watched with the {@code yaml}, {@code json} or {@code properties}
+     * format. A bigger document is rejected, the previous configuration of its key being kept. Defaults to the maximum
+     * size of a Consul KV value.
+     */
+    private int maxDocumentSize = 512 * 1024;
+
+    /**
+     * Maximum number of aliases to collections in a YAML document, preventing the expansion of a few aliases into a huge
+     * content ("billion laughs").
+     */
+    private int maxYamlAliases = 50;
+
+    /**
+     * Maximum depth of nested collections in a YAML document.
+     */
+    private int maxYamlNestingDepth = 50;
+
+    /**
+     * Maximum number of changes buffered for each subscriber of {@link ConsulKVWatcher#changes()} not keeping up, the
+     * oldest ones being dropped beyond.
+     */
+    private int changesBufferSize = 256;
+
+    /**
+     * When enabled, no {@link io.micronaut.runtime.context.scope.refresh.RefreshEvent} is published on change: only the
+     * {@link io.micronaut.context.annotation.ConfigurationProperties} beans whose prefix matches a changed property are
+     * rebuilt, leaving the {@link io.micronaut.runtime.context.scope.Refreshable} beans untouched.
+     */
+    private boolean targetedRefresh = false;
+
+    /**
+     * File where the last applied configuration of every watched key is saved. At bootstrap, the application boots from
+     * it when Consul fails or does not answer within {@link #snapshotBootTimeout}, then reconciles with Consul in the
+     * background, each watch blocking from the saved index. Not saved when not set.
+     */
+    @Nullable
+    private String snapshotPath;
+
+    /**
+     * Maximum time waited at bootstrap for the configuration of Consul before booting from the {@link #snapshotPath}.
+     * Should be lower than {@code micronaut.config-client.read-timeout}, which fails the boot when reached first.
+     */
+    private Duration snapshotBootTimeout = Duration.ofSeconds(2);
+
+    /**
+     * What runs the blocking queries of the watches. With {@link WatcherEngine#VIRTUAL_THREADS}, no vert.x instance is
+     * started, and {@link #maxPoolSize}, {@link #keepAlive}, {@link #keepAliveTimeout} and {@link #pipelining} are
+     * ignored.
+     */
+    private WatcherEngine engine = WatcherEngine.VERTX;
+
+    /**
+     * Number of event loops of the vert.x instance created for the {@link WatcherEngine#VERTX} engine, when the
+     * application does not provide one. As the blocking queries mostly wait, a single event loop handles many of them.
+     */
+    private int eventLoops = 1;
+
+}
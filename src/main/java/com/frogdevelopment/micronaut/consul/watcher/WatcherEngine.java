@@ -0,0 +1,19 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+/**
+ * What runs the blocking queries of the watches and schedules their retries.
+ */
+public enum WatcherEngine {
+
+    /**
+     * Non-blocking queries on the vert.x event loop, through a single HTTP connection pool.
+     */
+    VERTX,
+
+    /**
+     * Blocking queries of the JDK {@link java.net.http.HttpClient}, each on its own virtual thread, without any vert.x
+     * instance. Falls back to a cached pool of platform threads when virtual threads are not available, ie. before Java
+     * 21.
+     */
+    VIRTUAL_THREADS
+}
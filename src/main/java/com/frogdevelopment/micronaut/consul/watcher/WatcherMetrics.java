@@ -0,0 +1,92 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the Consul KV watcher. Every method does nothing by default, see {@link MicrometerWatcherMetrics} for the
+ * implementation used when Micrometer is available.
+ */
+interface WatcherMetrics {
+
+    WatcherMetrics NOOP = new WatcherMetrics() {
+    };
+
+    /**
+     * Timed steps of the change handling
+     */
+    @Getter
+    @RequiredArgsConstructor
+    enum Stage {
+        PARSE("parse"),
+        DIFF("diff"),
+        UPDATE("update"),
+        PUBLISH("publish");
+
+        private final String meterName;
+    }
+
+    /**
+     * A watch returned a new result for the key
+     */
+    default void eventReceived(final String key) {
+    }
+
+    /**
+     * The new result changed the configuration of the key
+     */
+    default void eventChanged(final String key) {
+    }
+
+    /**
+     * The new result was skipped without being parsed, as the content of the key did not change
+     */
+    default void eventShortCircuited(final String key) {
+    }
+
+    /**
+     * A result was dropped, its index being lower than the one of the last applied result
+     */
+    default void eventDropped(final String key) {
+    }
+
+    /**
+     * The Consul index of the key was considered as reset, after going backwards several times in a row
+     */
+    default void indexReset(final String key) {
+    }
+
+    /**
+     * The document of the key was rejected without being applied, exceeding the configured limits
+     */
+    default void documentRejected(final String key) {
+    }
+
+    /**
+     * An error occurred while watching the key or applying its changes
+     */
+    default void error(final String key) {
+    }
+
+    /**
+     * A failed blocking query on the key is going to be retried
+     */
+    default void retry(final String key) {
+    }
+
+    /**
+     * @param index last Consul index seen for the key
+     */
+    default void index(final String key, final long index) {
+    }
+
+    default <T> T record(final Stage stage, final String key, final Supplier<T> supplier) {
+        return supplier.get();
+    }
+
+    default void record(final Stage stage, final String key, final Runnable runnable) {
+        runnable.run();
+    }
+}
@@ -4,26 +4,29 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import jakarta.annotation.Nonnull;
-import jakarta.annotation.Nullable;
 
 import org.slf4j.Logger;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.representer.Representer;
 
 import io.micronaut.context.env.Environment;
 import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
-import io.vertx.ext.consul.KeyValue;
-import io.vertx.ext.consul.Watch;
 
 @Slf4j
-public class YamlConsulKVWatcher extends AbstractConsulKVWatcher<KeyValue> {
+public class YamlConsulKVWatcher extends AbstractDocumentConsulKVWatcher {
 
-    private final Yaml yaml = new Yaml();
+    // Yaml is not thread-safe
+    private final ThreadLocal<Yaml> yaml;
 
     @Override
     protected Logger getLogger() {
@@ -33,23 +36,47 @@ public class YamlConsulKVWatcher extends AbstractConsulKVWatcher<KeyValue> {
     YamlConsulKVWatcher(final Environment environment,
             final ApplicationEventPublisher<RefreshEvent> eventPublisher,
             final ConsulConfiguration consulConfiguration,
-            final Vertx vertx,
-            final ConsulClientOptions consulClientOptions) {
-        super(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
+            final WatcherConfiguration watcherConfiguration,
+            final WatcherMetrics watcherMetrics,
+            final ConsulKVClient consulKVClient,
+            final Executor executor) {
+        super(environment, eventPublisher, consulConfiguration, watcherConfiguration, watcherMetrics, consulKVClient, executor);
+        final var loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(watcherConfiguration.getMaxDocumentSize());
+        loaderOptions.setMaxAliasesForCollections(watcherConfiguration.getMaxYamlAliases());
+        loaderOptions.setNestingDepthLimit(watcherConfiguration.getMaxYamlNestingDepth());
+        loaderOptions.setAllowRecursiveKeys(false);
+        this.yaml = ThreadLocal.withInitial(() -> newYaml(loaderOptions));
     }
 
-    @Override
-    protected Watch<KeyValue> getWatcher(final String key, final Vertx vertx, final ConsulClientOptions consulClientOptions) {
-        return Watch.key(key, vertx, consulClientOptions);
+    /**
+     * @return a loader only building maps, lists and scalars, without resolving any custom tag into a Java object
+     */
+    private static Yaml newYaml(final LoaderOptions loaderOptions) {
+        final var dumperOptions = new DumperOptions();
+        return new Yaml(new SafeConstructor(loaderOptions), new Representer(dumperOptions), dumperOptions, loaderOptions);
     }
 
     @Nonnull
     @Override
-    protected Map<String, Object> toProperties(final String key, @Nullable final KeyValue value) {
-        if (value == null || !value.isPresent()) {
+    protected Map<String, Object> parse(final String key, @Nonnull final String document) {
+        final Object content;
+        try {
+            content = yaml.get().load(document);
+        } catch (final MarkedYAMLException e) {
+            // syntax error
+            throw e;
+        } catch (final YAMLException e) {
+            // exceeding the code points, aliases or nesting depth limits
+            throw reject(key, e.getMessage());
+        }
+        if (content == null) {
             return Collections.emptyMap();
         }
-        return yaml.load(value.getValue());
+        if (content instanceof Map<?, ?> map) {
+            return MapFlattener.flatten(map);
+        }
+        throw new IllegalArgumentException(String.format("Content of key [%s] is not a YAML map", key));
     }
 
 }
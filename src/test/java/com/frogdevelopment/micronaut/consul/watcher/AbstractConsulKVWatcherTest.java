@@ -2,16 +2,29 @@ package com.frogdevelopment.micronaut.consul.watcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.SoftAssertions.assertSoftly;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -19,6 +32,7 @@ import jakarta.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -26,6 +40,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.hash.HashCode;
+
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -33,11 +49,12 @@ import ch.qos.logback.core.read.ListAppender;
 import io.micronaut.context.env.Environment;
 import io.micronaut.context.env.PropertySource;
 import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.discovery.config.ConfigurationClient;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
 import io.vertx.ext.consul.Watch;
 import io.vertx.ext.consul.WatchResult;
 
@@ -47,12 +64,16 @@ class AbstractConsulKVWatcherTest {
     private class TestConsulKVWatcher extends AbstractConsulKVWatcher<Map<String, Object>> {
 
         final Logger log = (Logger) LoggerFactory.getLogger(TestConsulKVWatcher.class);
+        final List<Map<String, Object>> parsedValues = new ArrayList<>();
+        final Map<String, ConsulKVWatch.Options> watchOptions = new HashMap<>();
 
         TestConsulKVWatcher(Environment environment,
                 ApplicationEventPublisher<RefreshEvent> eventPublisher,
-                ConsulConfiguration consulConfiguration, Vertx vertx,
-                ConsulClientOptions consulClientOptions) {
-            super(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
+                ConsulConfiguration consulConfiguration, WatcherConfiguration watcherConfiguration, WatcherMetrics watcherMetrics,
+                ConsulKVClient consulKVClient) {
+            // handling changes in the calling thread, unless rejected
+            super(environment, eventPublisher, consulConfiguration, watcherConfiguration, watcherMetrics, consulKVClient,
+                    task -> executor.execute(task));
         }
 
         @Override
@@ -61,24 +82,60 @@ class AbstractConsulKVWatcherTest {
         }
 
         @Override
-        protected Watch<Map<String, Object>> getWatcher(String key, Vertx vertx, ConsulClientOptions consulClientOptions) {
+        protected Watch<Map<String, Object>> getWatcher(String key, ConsulKVClient consulKVClient, ConsulKVWatch.Options options) {
+            watchOptions.put(key, options);
             if (key.contains("application")) {
                 return watcherApplication;
             }
             return watcherConsulWatcher;
         }
 
+        @Override
+        Watch<KeyValueList> getPrefixWatcher(String keyPrefix, ConsulKVClient consulKVClient, ConsulKVWatch.Options options) {
+            return watcherRoot;
+        }
+
+        @Nullable
+        @Override
+        protected String findOwner(@Nonnull String path) {
+            final var end = path.lastIndexOf('/');
+            return end < 0 ? null : path.substring(0, end);
+        }
+
+        @Nullable
+        @Override
+        protected Map<String, Object> extract(String key, @Nullable List<KeyValue> keyValues, long index) {
+            if (keyValues == null) {
+                return null;
+            }
+            return keyValues.stream()
+                    .collect(Collectors.toMap(keyValue -> keyValue.getKey().substring(key.length() + 1), KeyValue::getValue));
+        }
+
         @Nonnull
         @Override
         protected Map<String, Object> toProperties(String key, @Nullable Map<String, Object> value) {
+            parsedValues.add(value);
             if (value == null) {
                 return Collections.emptyMap();
             }
             return value;
         }
+
+        @Override
+        protected long getModifyIndex(@Nullable Map<String, Object> value) {
+            return value == null ? 0 : ((Number) value.getOrDefault("index", 0)).longValue();
+        }
+
+        @Nonnull
+        @Override
+        protected HashCode hash(String key, @Nullable Map<String, Object> value) {
+            return HASH_FUNCTION.hashInt(value == null ? 0 : value.hashCode());
+        }
     }
 
     TestConsulKVWatcher consulKVWatcher;
+    Executor executor = Runnable::run;
 
     @Mock
     Environment environment;
@@ -86,10 +143,9 @@ class AbstractConsulKVWatcherTest {
     ApplicationEventPublisher<RefreshEvent> eventPublisher;
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     ConsulConfiguration consulConfiguration;
+    WatcherConfiguration watcherConfiguration = new WatcherConfiguration();
     @Mock
-    Vertx vertx;
-    @Mock
-    ConsulClientOptions consulClientOptions;
+    ConsulKVClient consulKVClient;
 
     @Mock
     Watch<Map<String, Object>> watcherApplication;
@@ -99,23 +155,31 @@ class AbstractConsulKVWatcherTest {
     Watch<Map<String, Object>> watcherConsulWatcher;
     @Captor
     ArgumentCaptor<Handler<WatchResult<Map<String, Object>>>> handlerWatcherConsulWatcher;
+    @Mock
+    Watch<KeyValueList> watcherRoot;
+    @Captor
+    ArgumentCaptor<Handler<WatchResult<KeyValueList>>> handlerWatcherRoot;
     @Captor
     ArgumentCaptor<PropertySource> propertySourceArgumentCaptor;
     @Captor
     ArgumentCaptor<RefreshEvent> refreshEventArgumentCaptor;
+    @Captor
+    ArgumentCaptor<Handler<Long>> timerHandlerArgumentCaptor;
 
     @BeforeEach
     void setup() {
-        consulKVWatcher = new TestConsulKVWatcher(environment, eventPublisher, consulConfiguration, vertx, consulClientOptions);
+        consulKVWatcher = new TestConsulKVWatcher(environment, eventPublisher, consulConfiguration, watcherConfiguration, WatcherMetrics.NOOP,
+                consulKVClient);
 
         given(consulConfiguration.getServiceId()).willReturn(Optional.of("consul-watcher"));
         given(consulConfiguration.getConfiguration().getPath()).willReturn(Optional.of("config/test"));
 
-        given(watcherApplication.setHandler(handlerWatcherApplication.capture())).willReturn(watcherApplication);
-        given(watcherApplication.start()).willReturn(watcherApplication);
+        // not used when multiplexed
+        lenient().when(watcherApplication.setHandler(handlerWatcherApplication.capture())).thenReturn(watcherApplication);
+        lenient().when(watcherApplication.start()).thenReturn(watcherApplication);
 
-        given(watcherConsulWatcher.setHandler(handlerWatcherConsulWatcher.capture())).willReturn(watcherConsulWatcher);
-        given(watcherConsulWatcher.start()).willReturn(watcherConsulWatcher);
+        lenient().when(watcherConsulWatcher.setHandler(handlerWatcherConsulWatcher.capture())).thenReturn(watcherConsulWatcher);
+        lenient().when(watcherConsulWatcher.start()).thenReturn(watcherConsulWatcher);
     }
 
     @Test
@@ -209,6 +273,38 @@ class AbstractConsulKVWatcherTest {
         then(eventPublisher).shouldHaveNoInteractions();
     }
 
+    @Test
+    void should_shortCircuit_when_sameModifyIndex() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        // when
+        consulKVWatcher.start();
+        var watchResultHandler = handlerWatcherApplication.getValue();
+        watchResultHandler.handle(getWatchResult(Map.of("key_a", "value_a", "index", 1), Map.of("key_a", "value_b", "index", 1)));
+
+        // then
+        then(environment).shouldHaveNoMoreInteractions();
+        then(eventPublisher).shouldHaveNoInteractions();
+        assertThat(consulKVWatcher.getShortCircuitedEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void should_shortCircuit_when_sameContent_on_differentModifyIndex() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        // when
+        consulKVWatcher.start();
+        var watchResultHandler = handlerWatcherApplication.getValue();
+        watchResultHandler.handle(getWatchResult(Map.of("key_a", "value_a"), Map.of("key_a", "value_a")));
+
+        // then
+        then(environment).shouldHaveNoMoreInteractions();
+        then(eventPublisher).shouldHaveNoInteractions();
+        assertThat(consulKVWatcher.getShortCircuitedEvents()).isEqualTo(1);
+    }
+
     @Test
     void should_notUpdatePropertySourceNorPublishChanges_when_incompatibleTypeOnDifferences() {
         // given
@@ -248,6 +344,281 @@ class AbstractConsulKVWatcherTest {
         assertThat(refreshEvent.getSource()).containsEntry("key_int", 1);
     }
 
+    @Test
+    void should_parseEachValueOnlyOnce_when_successiveChanges() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        Map<String, Object> first = Map.of("key_a", "value_a");
+        Map<String, Object> second = Map.of("key_a", "value_b");
+        Map<String, Object> third = Map.of("key_a", "value_c");
+
+        // when
+        consulKVWatcher.start();
+        var watchResultHandler = handlerWatcherApplication.getValue();
+        watchResultHandler.handle(getWatchResult(first, second));
+        watchResultHandler.handle(getWatchResult(second, third));
+
+        // then
+        assertThat(consulKVWatcher.parsedValues).containsExactly(first, second, third);
+        then(eventPublisher).should(times(2)).publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getAllValues())
+                .extracting(RefreshEvent::getSource)
+                .containsExactly(Map.of("key_a", "value_a"), Map.of("key_a", "value_b"));
+    }
+
+    @Test
+    void should_forgetParsedValues_when_stopping() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        Map<String, Object> first = Map.of("key_a", "value_a");
+        Map<String, Object> second = Map.of("key_a", "value_b");
+        Map<String, Object> third = Map.of("key_a", "value_c");
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(first, second));
+        consulKVWatcher.stop();
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(second, third));
+
+        // then
+        assertThat(consulKVWatcher.parsedValues).containsExactly(first, second, second, third);
+    }
+
+    @Test
+    void should_mergeChangesIntoOneRefreshEvent_when_debouncing() {
+        // given
+        watcherConfiguration.setDebounce(Duration.ofMillis(500));
+        given(environment.getActiveNames()).willReturn(Set.of("test"));
+        given(consulKVClient.setTimer(eq(500L), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-consul-watcher[test]", Map.of("key_1", "value_1"), 99));
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_a"), Map.of("key_a", "value_b")));
+        handlerWatcherConsulWatcher.getValue().handle(getWatchResult(Map.of("key_1", "value_1"), Map.of("key_1", "value_2")));
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_b"), Map.of("key_a", "value_c")));
+
+        // then
+        then(consulKVClient).should().setTimer(eq(500L), any());
+        then(environment).should(never()).addPropertySource(any());
+        then(eventPublisher).shouldHaveNoInteractions();
+
+        // when
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        then(environment).should(times(4)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .anySatisfy(propertySource -> assertSoftly(softAssertions -> {
+                    softAssertions.assertThat(propertySource.getName()).isEqualTo("consul-application");
+                    softAssertions.assertThat(propertySource.get("key_a")).isEqualTo("value_c");
+                }))
+                .anySatisfy(propertySource -> assertSoftly(softAssertions -> {
+                    softAssertions.assertThat(propertySource.getName()).isEqualTo("consul-consul-watcher[test]");
+                    softAssertions.assertThat(propertySource.get("key_1")).isEqualTo("value_2");
+                }));
+
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getValue().getSource())
+                .containsExactlyInAnyOrderEntriesOf(Map.of("key_a", "value_a", "key_1", "value_1"));
+    }
+
+    @Test
+    void should_keepDebouncing_when_theFlushIsRejected() {
+        // given
+        watcherConfiguration.setDebounce(Duration.ofMillis(500));
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(consulKVClient.setTimer(eq(500L), timerHandlerArgumentCaptor.capture())).willReturn(1L, 2L);
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_a"), Map.of("key_a", "value_b")));
+
+        // when the flush is rejected by the executor
+        executor = task -> {
+            throw new RejectedExecutionException("For test purpose");
+        };
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then flushed in the calling thread
+        then(environment).should().addPropertySource(any());
+        then(eventPublisher).should().publishEvent(any(RefreshEvent.class));
+
+        // when
+        executor = Runnable::run;
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_b"), Map.of("key_a", "value_c")));
+
+        // then a new window is opened
+        then(consulKVClient).should(times(2)).setTimer(eq(500L), any());
+    }
+
+    @Test
+    void should_diffTheFirstResult_againstTheBootstrapConfiguration_when_seeded() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(environment.getProperty(ConfigurationClient.ENABLED, Boolean.class)).willReturn(Optional.of(true));
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a", "key_b", "value_b"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        // changed between the bootstrap and the start of the watch
+        handlerWatcherApplication.getValue().handle(getWatchResult(null, Map.of("key_a", "value_a", "key_b", "value_c")));
+
+        // then
+        assertThat(consulKVWatcher.parsedValues).containsExactly(Map.of("key_a", "value_a", "key_b", "value_c"));
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getValue().getSource()).containsExactly(Map.entry("key_b", "value_b"));
+    }
+
+    @Test
+    void should_diffTheFirstResult_againstThePropertySource_when_seededSnapshotEvicted() {
+        // given no snapshot kept in memory
+        watcherConfiguration.setMaxSnapshots(0);
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(environment.getProperty(ConfigurationClient.ENABLED, Boolean.class)).willReturn(Optional.of(true));
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a", "key_b", "value_b"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(null, Map.of("key_a", "value_a", "key_b", "value_c")));
+
+        // then
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getValue().getSource()).containsExactly(Map.entry("key_b", "value_b"));
+    }
+
+    @Test
+    void should_saveTheAppliedChanges_inTheSnapshot(@TempDir Path tempDir) {
+        // given
+        var snapshotPath = tempDir.resolve("snapshot.json");
+        watcherConfiguration.setSnapshotPath(snapshotPath.toString());
+        given(environment.getActiveNames()).willReturn(Set.of());
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_a", "index", 1), Map.of("key_a", "value_b", "index", 2)));
+
+        // then
+        assertThat(SnapshotStore.read(snapshotPath)).containsOnlyKeys("config/test/application")
+                .extractingByKey("config/test/application")
+                .satisfies(entry -> assertSoftly(softAssertions -> {
+                    softAssertions.assertThat(entry.propertySourceName()).isEqualTo("consul-application");
+                    softAssertions.assertThat(entry.order()).isEqualTo(66);
+                    softAssertions.assertThat(entry.index()).isEqualTo(2);
+                    softAssertions.assertThat(entry.properties()).containsOnly(Map.entry("key_a", "value_b"), Map.entry("index", 2));
+                }));
+    }
+
+    @Test
+    void should_publishTheChanges_when_theSnapshotCanNotBeWritten(@TempDir Path tempDir) {
+        // given
+        var snapshotPath = tempDir.resolve("snapshot.json");
+        watcherConfiguration.setSnapshotPath(snapshotPath.toString());
+        given(environment.getActiveNames()).willReturn(Set.of());
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+        var configChanges = new ArrayList<ConfigChange>();
+        consulKVWatcher.changes().subscribe(configChanges::add);
+
+        // when the new value is not supported by JSON
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_a", "index", 1), Map.of("key_a", new Object(), "index", 2)));
+
+        // then
+        then(environment).should().addPropertySource(any());
+        then(eventPublisher).should().publishEvent(any(RefreshEvent.class));
+        assertThat(configChanges).hasSize(1);
+        assertThat(SnapshotStore.read(snapshotPath)).isEmpty();
+    }
+
+    @Test
+    void should_shortCircuitTheFirstResult_when_atTheIndexOfTheSnapshot(@TempDir Path tempDir) {
+        // given
+        var snapshotPath = tempDir.resolve("snapshot.json");
+        new SnapshotStore(snapshotPath).put("config/test/application",
+                new SnapshotStore.Entry("consul-application", 66, 2, Map.of("key_a", "value_b")));
+        watcherConfiguration.setSnapshotPath(snapshotPath.toString());
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(environment.getProperty(ConfigurationClient.ENABLED, Boolean.class)).willReturn(Optional.of(true));
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_b"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(null, Map.of("key_a", "value_b", "index", 2)));
+
+        // then
+        assertThat(consulKVWatcher.watchOptions.get("config/test/application").initialIndex()).isEqualTo(2);
+        assertThat(consulKVWatcher.parsedValues).isEmpty();
+        assertThat(consulKVWatcher.getShortCircuitedEvents()).isEqualTo(1);
+        then(eventPublisher).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void should_notBlockTheFirstQuery_when_bootedWithAnotherContentThanTheSnapshot(@TempDir Path tempDir) {
+        // given booted from Consul with a newer content
+        var snapshotPath = tempDir.resolve("snapshot.json");
+        new SnapshotStore(snapshotPath).put("config/test/application",
+                new SnapshotStore.Entry("consul-application", 66, 2, Map.of("key_a", "value_b")));
+        watcherConfiguration.setSnapshotPath(snapshotPath.toString());
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(environment.getProperty(ConfigurationClient.ENABLED, Boolean.class)).willReturn(Optional.of(true));
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_c"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(null, Map.of("key_a", "value_c")));
+
+        // then the first result is diffed against the booted content
+        assertThat(consulKVWatcher.watchOptions.get("config/test/application").initialIndex()).isZero();
+        assertThat(consulKVWatcher.watchOptions.get("config/test/consul-watcher").initialIndex()).isZero();
+        assertThat(consulKVWatcher.parsedValues).hasSize(1);
+        then(eventPublisher).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void should_ignoreTheFirstResult_when_notSeeded() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(null, Map.of("key_a", "value_a")));
+
+        // then
+        assertThat(consulKVWatcher.parsedValues).isEmpty();
+        then(eventPublisher).shouldHaveNoInteractions();
+    }
+
     @Test
     void should_stopAllWatchers_when_closing() {
         // when
@@ -259,17 +630,304 @@ class AbstractConsulKVWatcherTest {
         then(watcherConsulWatcher).should().stop();
     }
 
+    @Test
+    void should_closeTheSharedClient_when_closed() {
+        // when
+        consulKVWatcher.start();
+        consulKVWatcher.close();
+
+        // then
+        then(watcherApplication).should().stop();
+        then(consulKVClient).should().close();
+    }
+
+    @Test
+    void should_dispatchChangesToTheMatchingKey_when_multiplexed() {
+        // given
+        watcherConfiguration.setMultiplexed(true);
+        given(environment.getActiveNames()).willReturn(Set.of("test"));
+        given(watcherRoot.setHandler(handlerWatcherRoot.capture())).willReturn(watcherRoot);
+        given(watcherRoot.start()).willReturn(watcherRoot);
+
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-consul-watcher[test]", Map.of("key_1", "value_1"), 99));
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        var watchResultHandler = handlerWatcherRoot.getValue();
+        watchResultHandler.handle(getWatchResult(
+                getKeyValueList(Map.of("config/test/application/key_a", "value_a", "config/test/consul-watcher,test/key_1", "value_1")),
+                getKeyValueList(Map.of("config/test/application/key_a", "value_a", "config/test/consul-watcher,test/key_1", "value_2"))));
+
+        // then
+        then(watcherApplication).shouldHaveNoInteractions();
+        then(watcherConsulWatcher).shouldHaveNoInteractions();
+
+        then(environment).should(times(2)).addPropertySource(propertySourceArgumentCaptor.capture());
+        var propertySource = propertySourceArgumentCaptor.getAllValues().get(1);
+        assertThat(propertySource.getName()).isEqualTo("consul-consul-watcher[test]");
+        assertThat(propertySource.get("key_1")).isEqualTo("value_2");
+
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        var refreshEvent = refreshEventArgumentCaptor.getValue();
+        assertThat(refreshEvent.getSource()).containsExactlyEntriesOf(Map.of("key_1", "value_1"));
+    }
+
+    @Test
+    void should_onlyDispatchTheChangedKeys_when_multiplexed() {
+        // given
+        watcherConfiguration.setMultiplexed(true);
+        given(environment.getActiveNames()).willReturn(Set.of("test"));
+        given(watcherRoot.setHandler(handlerWatcherRoot.capture())).willReturn(watcherRoot);
+        given(watcherRoot.start()).willReturn(watcherRoot);
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-consul-watcher[test]", Map.of("key_1", "value_1"), 99));
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherRoot.getValue().handle(getWatchResult(
+                getKeyValueList(Map.of("config/test/application/key_a", "value_a", "config/test/consul-watcher,test/key_1", "value_1")),
+                getKeyValueList(Map.of("config/test/application/key_a", "value_a", "config/test/consul-watcher,test/key_1", "value_2",
+                        "config/test/other/key_x", "value_x"))));
+
+        // then the unchanged key is not even compared
+        assertThat(consulKVWatcher.parsedValues).containsExactly(Map.of("key_1", "value_1"), Map.of("key_1", "value_2"));
+        assertThat(consulKVWatcher.getShortCircuitedEvents()).isZero();
+        then(eventPublisher).should().publishEvent(any(RefreshEvent.class));
+    }
+
+    @Test
+    void should_ignoreTheMultiplexedResults_of_aKeyWatchedAgainOnItsOwn() {
+        // given
+        watcherConfiguration.setMultiplexed(true);
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(watcherRoot.setHandler(handlerWatcherRoot.capture())).willReturn(watcherRoot);
+        given(watcherRoot.start()).willReturn(watcherRoot);
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-consul-watcher", Map.of("key_1", "value_1"), 67));
+        given(environment.getPropertySources()).willReturn(propertySources);
+        consulKVWatcher.start();
+
+        // when removed then added back before the pending result of the multiplexed watch
+        consulKVWatcher.removeWatch("config/test/consul-watcher");
+        consulKVWatcher.addWatch("config/test/consul-watcher");
+        clearInvocations(environment, eventPublisher);
+        handlerWatcherRoot.getValue().handle(getWatchResult(
+                getKeyValueList(Map.of("config/test/consul-watcher/key_1", "value_1")),
+                getKeyValueList(Map.of("config/test/consul-watcher/key_1", "value_2"))));
+
+        // then
+        then(environment).should(never()).addPropertySource(any());
+        then(eventPublisher).shouldHaveNoInteractions();
+
+        // when
+        handlerWatcherConsulWatcher.getValue().handle(getWatchResult(Map.of("key_1", "value_1"), Map.of("key_1", "value_3")));
+
+        // then only the own watch of the key is handled
+        then(environment).should().addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getValue().get("key_1")).isEqualTo("value_3");
+        then(eventPublisher).should().publishEvent(any(RefreshEvent.class));
+    }
+
+    @Test
+    void should_emitConfigChange_once_applied() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a", "key_b", "value_b"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        var configChanges = new ArrayList<ConfigChange>();
+        consulKVWatcher.changes().subscribe(configChanges::add);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(
+                Map.of("key_a", "value_a", "key_b", "value_b", "index", 1),
+                Map.of("key_a", "value_c", "key_c", "value_c", "index", 2)));
+
+        // then
+        assertThat(configChanges).singleElement().satisfies(configChange -> assertSoftly(softAssertions -> {
+            softAssertions.assertThat(configChange.key()).isEqualTo("config/test/application");
+            softAssertions.assertThat(configChange.propertySourceName()).isEqualTo("consul-application");
+            softAssertions.assertThat(configChange.added()).containsExactlyEntriesOf(Map.of("key_c", "value_c"));
+            softAssertions.assertThat(configChange.removed()).containsExactlyEntriesOf(Map.of("key_b", "value_b"));
+            softAssertions.assertThat(configChange.changed())
+                    .containsOnly(Map.entry("key_a", new ConfigChange.ValueChange("value_a", "value_c")),
+                            Map.entry("index", new ConfigChange.ValueChange(1, 2)));
+            softAssertions.assertThat(configChange.index()).isEqualTo(2);
+            softAssertions.assertThat(configChange.affects("key_b")).isTrue();
+            softAssertions.assertThat(configChange.affects("key_d")).isFalse();
+        }));
+    }
+
+    @Test
+    void should_emitConfigChanges_when_debounceWindowEnds() {
+        // given
+        watcherConfiguration.setDebounce(Duration.ofMillis(500));
+        given(environment.getActiveNames()).willReturn(Set.of());
+        given(consulKVClient.setTimer(eq(500L), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+
+        var configChanges = new ArrayList<ConfigChange>();
+        consulKVWatcher.changes().subscribe(configChanges::add);
+
+        // when
+        consulKVWatcher.start();
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_a"), Map.of("key_a", "value_b")));
+        handlerWatcherApplication.getValue().handle(getWatchResult(Map.of("key_a", "value_b"), Map.of("key_a", "value_c")));
+
+        // then
+        assertThat(configChanges).isEmpty();
+
+        // when
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        assertThat(configChanges)
+                .extracting(configChange -> configChange.changed().get("key_a"))
+                .containsExactly(new ConfigChange.ValueChange("value_a", "value_b"), new ConfigChange.ValueChange("value_b", "value_c"));
+    }
+
+    @Test
+    void should_completeTheChanges_when_closed() {
+        // given
+        consulKVWatcher.start();
+        var completed = new AtomicBoolean();
+        consulKVWatcher.changes().subscribe(configChange -> {
+        }, error -> {
+        }, () -> completed.set(true));
+
+        // when
+        consulKVWatcher.close();
+
+        // then
+        assertThat(completed).isTrue();
+        then(consulKVClient).should().close();
+    }
+
+    @Test
+    void should_watchAnAddedKey_withoutRestartingTheOtherWatches() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-application", Map.of("key_a", "value_a"), 66));
+        given(environment.getPropertySources()).willReturn(propertySources);
+        consulKVWatcher.start();
+
+        // when
+        var added = consulKVWatcher.addWatch("config/test/tenant-a");
+        handlerWatcherConsulWatcher.getValue().handle(getWatchResult(null, Map.of("key_t", "value_t")));
+
+        // then
+        assertThat(added).isTrue();
+        assertThat(consulKVWatcher.addWatch("config/test/tenant-a")).isFalse();
+        then(watcherApplication).should().start();
+        then(watcherApplication).should(never()).stop();
+
+        then(environment).should(times(2)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues().get(0)).satisfies(propertySource -> assertSoftly(softAssertions -> {
+            softAssertions.assertThat(propertySource.getName()).isEqualTo("consul-tenant-a");
+            softAssertions.assertThat(propertySource.getOrder()).isEqualTo(67);
+        }));
+
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getValue().getSource()).containsOnlyKeys("key_t").containsEntry("key_t", null);
+    }
+
+    @Test
+    void should_watchTheKeysAdded_beforeStart() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+        consulKVWatcher.addWatch("config/test/tenant-a");
+
+        // when
+        consulKVWatcher.start();
+
+        // then
+        assertThat(consulKVWatcher.watchers).containsOnlyKeys("config/test/application", "config/test/consul-watcher", "config/test/tenant-a");
+    }
+
+    @Test
+    void should_reserveAConnection_perWatch() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+
+        // when
+        consulKVWatcher.start();
+
+        // then
+        then(consulKVClient).should().reserveConnections(2);
+
+        // when
+        consulKVWatcher.addWatch("config/test/tenant-a");
+        consulKVWatcher.addWatch("config/test/tenant-b");
+
+        // then
+        then(consulKVClient).should().reserveConnections(3);
+        then(consulKVClient).should().reserveConnections(4);
+    }
+
+    @Test
+    void should_clearTheProperties_of_aRemovedKey() {
+        // given
+        given(environment.getActiveNames()).willReturn(Set.of());
+        Collection<PropertySource> propertySources = new ArrayList<>();
+        propertySources.add(PropertySource.of("consul-tenant-a", Map.of("key_t", "value_t"), 67));
+        given(environment.getPropertySources()).willReturn(propertySources);
+        consulKVWatcher.start();
+        consulKVWatcher.addWatch("config/test/tenant-a");
+
+        // when
+        var removed = consulKVWatcher.removeWatch("config/test/tenant-a");
+
+        // then
+        assertThat(removed).isTrue();
+        assertThat(consulKVWatcher.removeWatch("config/test/tenant-a")).isFalse();
+        assertThat(consulKVWatcher.watchers).doesNotContainKey("config/test/tenant-a");
+        then(watcherConsulWatcher).should().stop();
+        then(watcherApplication).should(never()).stop();
+
+        then(environment).should().addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getValue().getName()).isEqualTo("consul-tenant-a");
+        assertThat(propertySourceArgumentCaptor.getValue().get("key_t")).isNull();
+
+        then(eventPublisher).should().publishEvent(refreshEventArgumentCaptor.capture());
+        assertThat(refreshEventArgumentCaptor.getValue().getSource()).containsExactly(Map.entry("key_t", "value_t"));
+    }
+
     @Nonnull
-    private WatchResult<Map<String, Object>> getWatchResult(Map<String, Object> prevResult,
-            Map<String, Object> nextResult) {
+    private static KeyValueList getKeyValueList(Map<String, String> values) {
+        var keyValues = values.entrySet()
+                .stream()
+                .map(entry -> {
+                    var keyValue = new KeyValue();
+                    keyValue.setKey(entry.getKey());
+                    keyValue.setValue(entry.getValue());
+                    return keyValue;
+                })
+                .toList();
+        var keyValueList = new KeyValueList();
+        keyValueList.setList(keyValues);
+        return keyValueList;
+    }
+
+    @Nonnull
+    private static <T> WatchResult<T> getWatchResult(T prevResult, T nextResult) {
         return new WatchResult<>() {
             @Override
-            public Map<String, Object> prevResult() {
+            public T prevResult() {
                 return prevResult;
             }
 
             @Override
-            public Map<String, Object> nextResult() {
+            public T nextResult() {
                 return nextResult;
             }
 
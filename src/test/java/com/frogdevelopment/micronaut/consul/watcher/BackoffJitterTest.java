@@ -0,0 +1,51 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+class BackoffJitterTest {
+
+    private static final long MIN = 1_000;
+    private static final long MAX = 60_000;
+
+    @Test
+    void should_doubleTheDelay_upToTheMax_when_none() {
+        // expect
+        assertThat(BackoffJitter.NONE.delay(MIN, MAX, 0, 0)).isEqualTo(1_000);
+        assertThat(BackoffJitter.NONE.delay(MIN, MAX, 1, 1_000)).isEqualTo(2_000);
+        assertThat(BackoffJitter.NONE.delay(MIN, MAX, 5, 16_000)).isEqualTo(32_000);
+        assertThat(BackoffJitter.NONE.delay(MIN, MAX, 6, 32_000)).isEqualTo(MAX);
+        assertThat(BackoffJitter.NONE.delay(MIN, MAX, 100, MAX)).isEqualTo(MAX);
+    }
+
+    @RepeatedTest(20)
+    void should_randomizeUnderTheExponentialDelay_when_full() {
+        // when
+        var delay = BackoffJitter.FULL.delay(MIN, MAX, 3, 4_000);
+
+        // then
+        assertThat(delay).isBetween(0L, 8_000L);
+    }
+
+    @RepeatedTest(20)
+    void should_keepHalfOfTheExponentialDelay_when_equal() {
+        // when
+        var delay = BackoffJitter.EQUAL.delay(MIN, MAX, 3, 4_000);
+
+        // then
+        assertThat(delay).isBetween(4_000L, 8_000L);
+    }
+
+    @RepeatedTest(20)
+    void should_stayBetweenTheMinAndThreeTimesThePreviousDelay_when_decorrelated() {
+        // when
+        var delay = BackoffJitter.DECORRELATED.delay(MIN, MAX, 3, 4_000);
+        var cappedDelay = BackoffJitter.DECORRELATED.delay(MIN, MAX, 10, 50_000);
+
+        // then
+        assertThat(delay).isBetween(MIN, 12_000L);
+        assertThat(cappedDelay).isBetween(MIN, MAX);
+    }
+}
@@ -0,0 +1,175 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+import io.vertx.ext.consul.KeyValueList;
+
+/**
+ * Behaviour expected from every {@link ConsulKVClient}, against a server serving as Consul
+ */
+abstract class BaseConsulKVClientTest {
+
+    protected Vertx vertx;
+    protected HttpServer server;
+    protected ConsulKVClient consulKVClient;
+
+    protected final AtomicReference<HttpServerRequest> lastRequest = new AtomicReference<>();
+    private volatile int status = 200;
+
+    protected abstract ConsulKVClient newClient(ConsulClientOptions consulClientOptions);
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        vertx = Vertx.vertx();
+        server = vertx.createHttpServer()
+                .requestHandler(request -> {
+                    lastRequest.set(request);
+                    final var body = new JsonArray()
+                            .add(new JsonObject()
+                                    .put("Key", "config/app/foo")
+                                    .put("Value", Base64.getEncoder().encodeToString("bar".getBytes(StandardCharsets.UTF_8)))
+                                    .put("ModifyIndex", 12))
+                            .add(new JsonObject()
+                                    .put("Key", "config/app/folder/")
+                                    .putNull("Value")
+                                    .put("ModifyIndex", 10));
+                    request.response()
+                            .setStatusCode(status)
+                            .putHeader("X-Consul-Index", "12")
+                            .putHeader("X-Consul-LastContact", "250")
+                            .end(status == 200 ? body.encode() : "");
+                })
+                .listen(0)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        consulKVClient = newClient(new ConsulClientOptions()
+                .setHost("localhost")
+                .setPort(server.actualPort())
+                .setDc("dc1")
+                .setAclToken("token"));
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        consulKVClient.close();
+        vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_sendTheQueryParameters_and_parseTheResponse() throws Exception {
+        // given
+        final var options = new BlockingQueryOptions().setIndex(10).setWait("30000ms");
+
+        // when
+        final var response = consulKVClient.getValues("config/app", options, ConsistencyMode.STALE)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        final var request = lastRequest.get();
+        assertThat(request.path()).isEqualTo("/v1/kv/config/app");
+        assertThat(request.getParam("recurse")).isNotNull();
+        assertThat(request.getParam("stale")).isNotNull();
+        assertThat(request.getParam("consistent")).isNull();
+        assertThat(request.getParam("index")).isEqualTo("10");
+        assertThat(request.getParam("wait")).isEqualTo("30000ms");
+        assertThat(request.getParam("dc")).isEqualTo("dc1");
+        assertThat(request.getHeader("X-Consul-Token")).isEqualTo("token");
+
+        assertThat(response.index()).isEqualTo(12);
+        assertThat(response.lastContact()).isEqualTo(250);
+        assertThat(response.result().getIndex()).isEqualTo(12);
+        assertThat(response.result().getList()).hasSize(2);
+        assertThat(response.result().getList().get(0).getKey()).isEqualTo("config/app/foo");
+        assertThat(response.result().getList().get(0).getValue()).isEqualTo("bar");
+        assertThat(response.result().getList().get(0).getModifyIndex()).isEqualTo(12);
+        assertThat(response.result().getList().get(1).getValue()).isNull();
+    }
+
+    @Test
+    void should_sendTheConsistentParameter() throws Exception {
+        // when
+        final var response = consulKVClient.getValue("config/app", new BlockingQueryOptions(), ConsistencyMode.CONSISTENT)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        final var request = lastRequest.get();
+        assertThat(request.getParam("consistent")).isNotNull();
+        assertThat(request.getParam("stale")).isNull();
+        assertThat(request.getParam("recurse")).isNull();
+        assertThat(request.getParam("index")).isNull();
+        assertThat(response.result().getKey()).isEqualTo("config/app/foo");
+    }
+
+    @Test
+    void should_returnAnEmptyResult_when_notFound() throws Exception {
+        // given
+        status = 404;
+
+        // when
+        final var response = consulKVClient.getValues("config/app", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(response.index()).isEqualTo(12);
+        assertThat(response.result()).extracting(KeyValueList::isPresent).isEqualTo(false);
+    }
+
+    @Test
+    void should_fail_when_unexpectedStatus() {
+        // given
+        status = 500;
+
+        // when
+        final var future = consulKVClient.getValues("config/app", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture();
+
+        // then
+        assertThat(future).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withMessageContaining("500");
+    }
+
+    @Test
+    void should_fireTheTimer() throws Exception {
+        // given
+        final var fired = new CountDownLatch(1);
+
+        // when
+        final var id = consulKVClient.setTimer(10, timerId -> fired.countDown());
+
+        // then
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(consulKVClient.cancelTimer(id)).isFalse();
+    }
+
+    @Test
+    void should_notFireTheTimer_when_cancelled() throws Exception {
+        // given
+        final var fired = new CountDownLatch(1);
+        final var id = consulKVClient.setTimer(200, timerId -> fired.countDown());
+
+        // when
+        final var cancelled = consulKVClient.cancelTimer(id);
+
+        // then
+        assertThat(cancelled).isTrue();
+        assertThat(fired.await(500, TimeUnit.MILLISECONDS)).isFalse();
+    }
+}
@@ -0,0 +1,122 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.BeanRegistration;
+import io.micronaut.context.Qualifier;
+import io.micronaut.context.annotation.ConfigurationReader;
+import io.micronaut.inject.BeanDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@ExtendWith(MockitoExtension.class)
+class ConfigurationPropertiesRefresherTest {
+
+    @Mock
+    private BeanContext beanContext;
+    @Mock
+    private ConsulKVWatcher consulKVWatcher;
+
+    private ConfigurationPropertiesRefresher refresher;
+
+    @BeforeEach
+    void beforeEach() {
+        given(consulKVWatcher.changes()).willReturn(Flux.never());
+        refresher = new ConfigurationPropertiesRefresher(beanContext, consulKVWatcher);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BeanRegistration<Object> registration(final String prefix) {
+        final var registration = (BeanRegistration<Object>) mock(BeanRegistration.class);
+        final var beanDefinition = (BeanDefinition<Object>) mock(BeanDefinition.class);
+        given(registration.getBeanDefinition()).willReturn(beanDefinition);
+        given(beanDefinition.stringValue(ConfigurationReader.class, "prefix")).willReturn(Optional.of(prefix));
+        return registration;
+    }
+
+    @Test
+    void should_refreshOnlyTheBeans_boundToAChangedProperty() {
+        // given
+        var datasource = registration("datasources.default");
+        var otherDatasource = registration("datasources.default-2");
+        var server = registration("micronaut.server");
+        given(beanContext.getActiveBeanRegistrations(any(Qualifier.class)))
+                .willReturn(List.of(datasource, otherDatasource, server));
+        var configChange = new ConfigChange("config/application", "consul-application",
+                Map.of("datasources.default.url", "jdbc:h2:mem:db"), Map.of(), Map.of(), 12);
+
+        // when
+        refresher.refresh(configChange);
+
+        // then
+        then(beanContext).should().refreshBean(datasource);
+        then(beanContext).should(never()).refreshBean(otherDatasource);
+        then(beanContext).should(never()).refreshBean(server);
+    }
+
+    @Test
+    void should_keepRefreshing_when_aBeanFailedToRefresh() {
+        // given
+        var changes = Sinks.many().multicast().<ConfigChange>directBestEffort();
+        given(consulKVWatcher.changes()).willReturn(changes.asFlux());
+        var listening = new ConfigurationPropertiesRefresher(beanContext, consulKVWatcher);
+        var datasource = registration("datasources.default");
+        var server = registration("micronaut.server");
+        given(beanContext.getActiveBeanRegistrations(any(Qualifier.class))).willReturn(List.of(datasource, server));
+        willThrow(new IllegalStateException("For test purpose")).willNothing().given(beanContext).refreshBean(datasource);
+        var configChange = new ConfigChange("config/application", "consul-application",
+                Map.of("datasources.default.url", "jdbc:h2:mem:db", "micronaut.server.port", "8080"), Map.of(), Map.of(), 12);
+
+        // when
+        changes.tryEmitNext(configChange);
+        changes.tryEmitNext(configChange);
+
+        // then
+        then(beanContext).should(times(2)).refreshBean(datasource);
+        then(beanContext).should(times(2)).refreshBean(server);
+        assertThat(changes.currentSubscriberCount()).isOne();
+        listening.close();
+    }
+
+    @Test
+    void should_matchTheProperties_underThePrefix() {
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasources.default.url", "datasources.default")).isTrue();
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasources.default", "datasources.default")).isTrue();
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasources.default[0]", "datasources.default")).isTrue();
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasources.default-2.url", "datasources.default")).isFalse();
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasources.other.url", "datasources.*")).isTrue();
+        assertThat(ConfigurationPropertiesRefresher.isUnder("datasource.url", "datasources.*")).isFalse();
+    }
+
+    @Test
+    void should_stopListening_when_closed() {
+        // given
+        var changes = Sinks.many().multicast().<ConfigChange>directBestEffort();
+        given(consulKVWatcher.changes()).willReturn(changes.asFlux());
+        var listening = new ConfigurationPropertiesRefresher(beanContext, consulKVWatcher);
+
+        // when
+        listening.close();
+
+        // then
+        assertThat(changes.currentSubscriberCount()).isZero();
+    }
+}
@@ -0,0 +1,337 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.consul.WatchResult;
+
+@ExtendWith(MockitoExtension.class)
+class ConsulKVWatchTest {
+
+    private static final String KEY = "config/application";
+
+    @Mock
+    private ConsulKVClient consulKVClient;
+    @Mock
+    private WatcherMetrics watcherMetrics;
+
+    @Captor
+    private ArgumentCaptor<BlockingQueryOptions> optionsArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<ConsistencyMode> consistencyArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Long>> timerHandlerArgumentCaptor;
+
+    private final List<WatchResult<KeyValueList>> results = new ArrayList<>();
+
+    private ConsulKVWatch.Options options(final ConsistencyMode consistency, final Duration maxStaleness) {
+        return new ConsulKVWatch.Options(Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofSeconds(8),
+                BackoffJitter.NONE, 2, consistency, maxStaleness, watcherMetrics, 0);
+    }
+
+    private ConsulKVWatch.Options options() {
+        return options(ConsistencyMode.DEFAULT, null);
+    }
+
+    private static Future<ConsulKVClient.Response<KeyValueList>> response(final long index) {
+        return response(index, 0);
+    }
+
+    private static Future<ConsulKVClient.Response<KeyValueList>> response(final long index, final long lastContact) {
+        final var keyValues = new KeyValueList()
+                .setIndex(index)
+                .setList(List.of(new KeyValue().setKey(KEY + "/foo").setValue("bar_" + index)));
+        return Future.succeededFuture(new ConsulKVClient.Response<>(keyValues, index, lastContact));
+    }
+
+    private static <T> Future<ConsulKVClient.Response<T>> pending() {
+        return Promise.<ConsulKVClient.Response<T>>promise().future();
+    }
+
+    @Test
+    void should_notifyTheFirstResult_and_eachIndexChange() {
+        // given
+        var first = Promise.<ConsulKVClient.Response<KeyValueList>>promise();
+        var second = Promise.<ConsulKVClient.Response<KeyValueList>>promise();
+        var third = Promise.<ConsulKVClient.Response<KeyValueList>>promise();
+        given(consulKVClient.getValues(eq(KEY), optionsArgumentCaptor.capture(), eq(ConsistencyMode.DEFAULT)))
+                .willReturn(first.future(), second.future(), third.future(), pending());
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options())
+                .setHandler(results::add)
+                .start();
+        first.complete(response(12).result());
+        second.complete(response(12).result());
+        third.complete(response(15).result());
+
+        // then
+        assertThat(optionsArgumentCaptor.getAllValues())
+                .extracting(BlockingQueryOptions::getIndex)
+                .containsExactly(0L, 12L, 12L, 15L);
+        assertThat(optionsArgumentCaptor.getValue().getWait()).isEqualTo("30000ms");
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).prevResult()).isNull();
+        assertThat(results.get(0).nextResult().getIndex()).isEqualTo(12);
+        assertThat(results.get(1).prevResult().getIndex()).isEqualTo(12);
+        assertThat(results.get(1).nextResult().getIndex()).isEqualTo(15);
+    }
+
+    @Test
+    void should_blockFromTheInitialIndex() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), optionsArgumentCaptor.capture(), eq(ConsistencyMode.DEFAULT)))
+                .willReturn(response(15), pending());
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options().startingAt(12))
+                .setHandler(results::add)
+                .start();
+
+        // then
+        assertThat(optionsArgumentCaptor.getAllValues())
+                .extracting(BlockingQueryOptions::getIndex)
+                .containsExactly(12L, 15L);
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.prevResult()).isNull();
+            assertThat(result.nextResult().getIndex()).isEqualTo(15);
+        });
+    }
+
+    @Test
+    void should_notifyTheError_and_retryLater() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), any(), any()))
+                .willReturn(Future.failedFuture(new RuntimeException("For test purpose")), response(12), pending());
+        given(consulKVClient.setTimer(anyLong(), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options())
+                .setHandler(results::add)
+                .start();
+
+        // then
+        then(consulKVClient).should().setTimer(eq(1_000L), any());
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.failed()).isTrue();
+            assertThat(result.cause()).hasMessage("For test purpose");
+        });
+
+        // and when
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        assertThat(results).hasSize(2);
+        assertThat(results.get(1).succeeded()).isTrue();
+    }
+
+    @Test
+    void should_backOffExponentially_and_countRetries_when_errorsRepeat() {
+        // given
+        var retryOptions = new ConsulKVWatch.Options(Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofSeconds(3),
+                BackoffJitter.NONE, 2, ConsistencyMode.DEFAULT, null, watcherMetrics, 0);
+        given(consulKVClient.getValues(eq(KEY), any(), any()))
+                .willReturn(Future.failedFuture(new RuntimeException("For test purpose")));
+        given(consulKVClient.setTimer(anyLong(), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, retryOptions)
+                .setHandler(results::add)
+                .start();
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+        timerHandlerArgumentCaptor.getValue().handle(2L);
+        timerHandlerArgumentCaptor.getValue().handle(3L);
+
+        // then
+        var delays = ArgumentCaptor.forClass(Long.class);
+        then(consulKVClient).should(times(4)).setTimer(delays.capture(), any());
+        assertThat(delays.getAllValues()).containsExactly(1_000L, 2_000L, 3_000L, 3_000L);
+        then(watcherMetrics).should(times(4)).retry(KEY);
+    }
+
+    @Test
+    void should_dropTheResult_and_queryWithoutIndex_when_indexGoesBackwards() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), optionsArgumentCaptor.capture(), any()))
+                .willReturn(response(15), response(12), response(16), pending());
+        given(consulKVClient.setTimer(anyLong(), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options())
+                .setHandler(results::add)
+                .start();
+        // stale read from a server lagging behind
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        assertThat(optionsArgumentCaptor.getAllValues())
+                .extracting(BlockingQueryOptions::getIndex)
+                .containsExactly(0L, 15L, 0L, 16L);
+        assertThat(results)
+                .extracting(result -> result.nextResult().getIndex())
+                .containsExactly(15L, 16L);
+        assertThat(results.get(1).prevResult().getIndex()).isEqualTo(15);
+        then(watcherMetrics).should().eventDropped(KEY);
+        then(watcherMetrics).should(never()).indexReset(KEY);
+    }
+
+    @Test
+    void should_applyTheResult_when_indexKeepsGoingBackwards() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), any(), any()))
+                .willReturn(response(15), response(3), response(3), pending());
+        given(consulKVClient.setTimer(anyLong(), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options())
+                .setHandler(results::add)
+                .start();
+        // snapshot restored
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        assertThat(results)
+                .extracting(result -> result.nextResult().getIndex())
+                .containsExactly(15L, 3L);
+        then(watcherMetrics).should().eventDropped(KEY);
+        then(watcherMetrics).should().indexReset(KEY);
+    }
+
+    @Test
+    void should_confirmWithTheLeader_when_staleIndexGoesBackwards() {
+        // given a lagging follower answering the stale reads, the leader being up-to-date
+        given(consulKVClient.getValues(eq(KEY), any(), eq(ConsistencyMode.STALE)))
+                .willReturn(response(15), response(3), response(3), response(3), pending());
+        given(consulKVClient.getValues(eq(KEY), any(), eq(ConsistencyMode.DEFAULT)))
+                .willReturn(response(15), response(15), response(15));
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options(ConsistencyMode.STALE, null))
+                .setHandler(results::add)
+                .start();
+
+        // then the older results are never applied
+        assertThat(results)
+                .extracting(result -> result.nextResult().getIndex())
+                .containsExactly(15L);
+        then(watcherMetrics).should(times(3)).eventDropped(KEY);
+        then(watcherMetrics).should(never()).indexReset(KEY);
+    }
+
+    @Test
+    void should_applyTheResult_when_theLeaderConfirmsTheIndexWentBackwards() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), any(), eq(ConsistencyMode.STALE)))
+                .willReturn(response(15), response(3), response(3), pending());
+        given(consulKVClient.getValues(eq(KEY), any(), eq(ConsistencyMode.DEFAULT)))
+                .willReturn(response(3), response(3));
+        given(consulKVClient.setTimer(anyLong(), timerHandlerArgumentCaptor.capture())).willReturn(1L);
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options(ConsistencyMode.STALE, null))
+                .setHandler(results::add)
+                .start();
+        // snapshot restored
+        timerHandlerArgumentCaptor.getValue().handle(1L);
+
+        // then
+        assertThat(results)
+                .extracting(result -> result.nextResult().getIndex())
+                .containsExactly(15L, 3L);
+        then(watcherMetrics).should().indexReset(KEY);
+    }
+
+    @Test
+    void should_notifyTheDeletion_of_aSingleKey() {
+        // given
+        given(consulKVClient.getValue(eq(KEY), any(), any()))
+                .willReturn(Future.succeededFuture(new ConsulKVClient.Response<>(new KeyValue().setKey(KEY).setValue("foo").setModifyIndex(12), 12, 0)),
+                        Future.succeededFuture(new ConsulKVClient.Response<>(new KeyValue(), 13, 0)),
+                        pending());
+        var keyResults = new ArrayList<WatchResult<KeyValue>>();
+
+        // when
+        ConsulKVWatch.key(KEY, consulKVClient, options())
+                .setHandler(keyResults::add)
+                .start();
+
+        // then
+        assertThat(keyResults).hasSize(2);
+        assertThat(keyResults.get(1).nextResult().isPresent()).isFalse();
+    }
+
+    @Test
+    void should_queryWithTheConfiguredConsistency() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), any(), consistencyArgumentCaptor.capture()))
+                .willReturn(response(12), pending());
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options(ConsistencyMode.STALE, null))
+                .setHandler(results::add)
+                .start();
+
+        // then
+        assertThat(consistencyArgumentCaptor.getAllValues()).containsExactly(ConsistencyMode.STALE, ConsistencyMode.STALE);
+    }
+
+    @Test
+    void should_queryTheLeader_when_resultTooStale() {
+        // given
+        given(consulKVClient.getValues(eq(KEY), any(), consistencyArgumentCaptor.capture()))
+                .willReturn(response(12, 5_000), response(12, 0), pending());
+
+        // when
+        ConsulKVWatch.keyPrefix(KEY, consulKVClient, options(ConsistencyMode.STALE, Duration.ofSeconds(1)))
+                .setHandler(results::add)
+                .start();
+
+        // then
+        assertThat(consistencyArgumentCaptor.getAllValues())
+                .containsExactly(ConsistencyMode.STALE, ConsistencyMode.DEFAULT, ConsistencyMode.STALE);
+        assertThat(results).singleElement().satisfies(result -> assertThat(result.nextResult().getIndex()).isEqualTo(12));
+        then(watcherMetrics).should().eventDropped(KEY);
+    }
+
+    @Test
+    void should_stopQuerying_when_stopped() {
+        // given
+        var pending = Promise.<ConsulKVClient.Response<KeyValueList>>promise();
+        given(consulKVClient.getValues(eq(KEY), any(), any())).willReturn(pending.future());
+
+        // when
+        var watch = ConsulKVWatch.keyPrefix(KEY, consulKVClient, options())
+                .setHandler(results::add)
+                .start();
+        watch.stop();
+        pending.complete(response(12).result());
+
+        // then
+        then(consulKVClient).should().getValues(eq(KEY), any(), any());
+        assertThat(results).isEmpty();
+    }
+}
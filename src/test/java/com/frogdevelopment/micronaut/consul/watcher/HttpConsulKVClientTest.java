@@ -0,0 +1,76 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+
+class HttpConsulKVClientTest extends BaseConsulKVClientTest {
+
+    @Override
+    protected ConsulKVClient newClient(final ConsulClientOptions consulClientOptions) {
+        return new HttpConsulKVClient(consulClientOptions);
+    }
+
+    @Test
+    void should_quoteTheKey() throws Exception {
+        // when
+        final var response = consulKVClient.getValue("config/my app,test", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(lastRequest.get().path()).isEqualTo("/v1/kv/config/my%20app,test");
+        assertThat(response.result().getKey()).isEqualTo("config/app/foo");
+    }
+
+    @Test
+    void should_fail_when_closed() {
+        // given
+        consulKVClient.close();
+
+        // when
+        final var future = consulKVClient.getValue("config/app", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture();
+
+        // then
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    @Test
+    void should_reuseThePlatformThreads_when_virtualThreadsAreNotAvailable() throws Exception {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        // given
+        final var executor = HttpConsulKVClient.newExecutor();
+        final var threads = new HashSet<Thread>();
+
+        try {
+            // when
+            for (int i = 0; i < 20; i++) {
+                threads.add(executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS));
+            }
+
+            // then
+            assertThat(threads).hasSizeLessThan(20).allMatch(Thread::isDaemon);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_parseTheWaitDuration() {
+        assertThat(HttpConsulKVClient.waitMillis(null)).isZero();
+        assertThat(HttpConsulKVClient.waitMillis("300000ms")).isEqualTo(300_000);
+        assertThat(HttpConsulKVClient.waitMillis("30s")).isEqualTo(30_000);
+        assertThat(HttpConsulKVClient.waitMillis("5m")).isEqualTo(300_000);
+        assertThatThrownBy(() -> HttpConsulKVClient.waitMillis("5d")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.ext.consul.KeyValue;
+
+class JsonConsulKVWatcherTest {
+
+    private final JsonConsulKVWatcher jsonConsulKVWatcher = new JsonConsulKVWatcher(null, null, null,
+            new WatcherConfiguration(), WatcherMetrics.NOOP, null, Runnable::run);
+
+    @Test
+    void should_return_emptyMap_when_blankDocument() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("  ");
+
+        // when
+        var properties = jsonConsulKVWatcher.toProperties("path/my_application", keyValue);
+
+        // then
+        assertThat(properties).isEmpty();
+    }
+
+    @Test
+    void should_return_flattenedProperties() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("""
+                {"datasources": {"default": {"url": "jdbc:h2:mem:db", "maximum-pool-size": 10}}, "hosts": ["a", "b"]}
+                """);
+
+        // when
+        var properties = jsonConsulKVWatcher.toProperties("path/my_application", keyValue);
+
+        // then
+        assertThat(properties).containsOnly(
+                Map.entry("datasources.default.url", "jdbc:h2:mem:db"),
+                Map.entry("datasources.default.maximum-pool-size", 10),
+                Map.entry("hosts", List.of("a", "b")));
+    }
+}
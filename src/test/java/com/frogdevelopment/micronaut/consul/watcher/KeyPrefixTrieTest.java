@@ -0,0 +1,53 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeyPrefixTrieTest {
+
+    private final KeyPrefixTrie trie = KeyPrefixTrie.of(List.of(
+            "config/application",
+            "config/application,dev",
+            "config/my-app",
+            "config/my-app,dev"));
+
+    @Test
+    void should_findTheOwner_ofAPathUnderAKey() {
+        // expect
+        assertThat(trie.findOwner("config/application/foo")).isEqualTo("config/application");
+        assertThat(trie.findOwner("config/application,dev/foo/bar")).isEqualTo("config/application,dev");
+        assertThat(trie.findOwner("config/my-app/foo")).isEqualTo("config/my-app");
+    }
+
+    @Test
+    void should_return_null_when_noKeyOwnsThePath() {
+        // expect
+        assertThat(trie.findOwner("config/application")).isNull();
+        assertThat(trie.findOwner("config/application,prod/foo")).isNull();
+        assertThat(trie.findOwner("config/my-application/foo")).isNull();
+        assertThat(trie.findOwner("other/foo")).isNull();
+        assertThat(trie.findOwner("")).isNull();
+    }
+
+    @Test
+    void should_return_theDeepestOwner_when_keysAreNested() {
+        // given
+        var nestedTrie = KeyPrefixTrie.of(List.of("config", "config/application"));
+
+        // expect
+        assertThat(nestedTrie.findOwner("config/application/foo")).isEqualTo("config/application");
+        assertThat(nestedTrie.findOwner("config/other/foo")).isEqualTo("config");
+    }
+
+    @Test
+    void should_containOnlyTheWatchedKeys() {
+        // expect
+        assertThat(trie.contains("config/application")).isTrue();
+        assertThat(trie.contains("config/application,dev")).isTrue();
+        assertThat(trie.contains("config/app")).isFalse();
+        assertThat(trie.contains("config/application/foo")).isFalse();
+    }
+}
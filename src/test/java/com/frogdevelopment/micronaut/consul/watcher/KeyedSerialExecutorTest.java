@@ -0,0 +1,129 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeyedSerialExecutorTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private final KeyedSerialExecutor keyedSerialExecutor = new KeyedSerialExecutor(executorService);
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void should_runTasksOfSameKey_inOrder() {
+        // given
+        final List<Integer> executed = new CopyOnWriteArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            final var value = i;
+            keyedSerialExecutor.execute("key", () -> executed.add(value));
+        }
+
+        // then
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 100);
+        assertThat(executed).isSorted();
+    }
+
+    @Test
+    void should_notBlockOtherKeys_when_aTaskIsRunning() throws InterruptedException {
+        // given
+        final var blocking = new CountDownLatch(1);
+        final var otherKeyExecuted = new CountDownLatch(1);
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // when
+        keyedSerialExecutor.execute("slow", () -> {
+            try {
+                blocking.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executed.add("slow-1");
+        });
+        keyedSerialExecutor.execute("slow", () -> executed.add("slow-2"));
+        keyedSerialExecutor.execute("fast", () -> {
+            executed.add("fast");
+            otherKeyExecuted.countDown();
+        });
+
+        // then
+        assertThat(otherKeyExecuted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("fast");
+
+        // when
+        blocking.countDown();
+
+        // then
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 3);
+        assertThat(executed).containsExactly("fast", "slow-1", "slow-2");
+    }
+
+    @Test
+    void should_keepRunningTasks_when_aPreviousOneFailed() {
+        // given
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // when
+        keyedSerialExecutor.execute("key", () -> {
+            throw new IllegalStateException("For test purpose");
+        });
+        keyedSerialExecutor.execute("key", () -> executed.add("next"));
+
+        // then
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 1);
+    }
+
+    @Test
+    void should_forgetTheKeys_once_theirTasksCompleted() {
+        // given
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            final var key = "tenant-" + i;
+            keyedSerialExecutor.execute(key, () -> executed.add(key));
+        }
+
+        // then
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 100);
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> keyedSerialExecutor.pendingKeys() == 0);
+    }
+
+    @Test
+    void should_keepRunningTasks_when_aPreviousOneWasRejected() {
+        // given the first task rejected
+        final var rejected = new AtomicBoolean();
+        final var rejecting = new KeyedSerialExecutor(task -> {
+            if (rejected.compareAndSet(false, true)) {
+                throw new RejectedExecutionException("For test purpose");
+            }
+            task.run();
+        });
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        // when
+        rejecting.execute("key", () -> executed.add("rejected"));
+        rejecting.execute("key", () -> executed.add("next"));
+
+        // then
+        assertThat(executed).containsExactly("next");
+        assertThat(rejecting.pendingKeys()).isZero();
+    }
+}
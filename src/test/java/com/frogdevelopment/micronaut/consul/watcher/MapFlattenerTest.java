@@ -0,0 +1,51 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MapFlattenerTest {
+
+    @Test
+    void should_return_emptyMap_when_null() {
+        // when
+        var flattened = MapFlattener.flatten(null);
+
+        // then
+        assertThat(flattened).isEmpty();
+    }
+
+    @Test
+    void should_flattenNestedMaps_intoDottedKeys() {
+        // given
+        var map = Map.of(
+                "datasources", Map.of("default", Map.of("url", "jdbc:h2:mem:db", "maximum-pool-size", 10)),
+                "enabled", true);
+
+        // when
+        var flattened = MapFlattener.flatten(map);
+
+        // then
+        assertThat(flattened).containsOnly(
+                Map.entry("datasources.default.url", "jdbc:h2:mem:db"),
+                Map.entry("datasources.default.maximum-pool-size", 10),
+                Map.entry("enabled", true));
+    }
+
+    @Test
+    void should_keepListsAndEmptyMaps_asLeaves() {
+        // given
+        var map = Map.of("hosts", List.of("a", "b"), "empty", Map.of());
+
+        // when
+        var flattened = MapFlattener.flatten(map);
+
+        // then
+        assertThat(flattened).containsOnly(
+                Map.entry("hosts", List.of("a", "b")),
+                Map.entry("empty", Map.of()));
+    }
+}
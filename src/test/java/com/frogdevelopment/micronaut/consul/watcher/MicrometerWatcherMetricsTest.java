@@ -0,0 +1,65 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.frogdevelopment.micronaut.consul.watcher.WatcherMetrics.Stage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MicrometerWatcherMetricsTest {
+
+    private static final String KEY = "config/application";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MicrometerWatcherMetrics watcherMetrics = new MicrometerWatcherMetrics(meterRegistry);
+
+    @Test
+    void should_countEvents_byKey() {
+        // when
+        watcherMetrics.eventReceived(KEY);
+        watcherMetrics.eventReceived(KEY);
+        watcherMetrics.eventReceived("config/other");
+        watcherMetrics.eventChanged(KEY);
+        watcherMetrics.eventShortCircuited(KEY);
+        watcherMetrics.error(KEY);
+        watcherMetrics.retry(KEY);
+        watcherMetrics.eventDropped(KEY);
+        watcherMetrics.indexReset(KEY);
+        watcherMetrics.documentRejected(KEY);
+
+        // then
+        assertThat(meterRegistry.get("consul.watcher.events.received").tag("key", KEY).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("consul.watcher.events.changed").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.events.short-circuited").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.errors").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.retries").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.events.dropped").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.index.resets").tag("key", KEY).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.documents.rejected").tag("key", KEY).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_gaugeTheLastIndex_byKey() {
+        // when
+        watcherMetrics.index(KEY, 12);
+        watcherMetrics.index(KEY, 42);
+
+        // then
+        assertThat(meterRegistry.get("consul.watcher.index").tag("key", KEY).gauge().value()).isEqualTo(42);
+    }
+
+    @Test
+    void should_timeEachStage_byKey() {
+        // when
+        var result = watcherMetrics.record(Stage.PARSE, KEY, () -> "parsed");
+        watcherMetrics.record(Stage.UPDATE, KEY, () -> {
+        });
+
+        // then
+        assertThat(result).isEqualTo("parsed");
+        assertThat(meterRegistry.get("consul.watcher.parse").tag("key", KEY).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consul.watcher.update").tag("key", KEY).timer().count()).isEqualTo(1);
+    }
+}
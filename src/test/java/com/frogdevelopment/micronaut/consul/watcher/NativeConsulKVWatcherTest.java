@@ -12,11 +12,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
 import io.vertx.ext.consul.KeyValue;
 import io.vertx.ext.consul.KeyValueList;
-import io.vertx.ext.consul.impl.WatchImpl;
 
 @ExtendWith(MockitoExtension.class)
 class NativeConsulKVWatcherTest {
@@ -25,16 +22,15 @@ class NativeConsulKVWatcherTest {
     private NativeConsulKVWatcher nativeConsulKVWatcher;
 
     @Mock
-    private Vertx vertx;
-    private final ConsulClientOptions consulClientOptions = new ConsulClientOptions();
+    private ConsulKVClient consulKVClient;
 
     @Test
     void should_return_KeyPrefixWatcher() {
         // when
-        var watcher = nativeConsulKVWatcher.getWatcher("key", vertx, consulClientOptions);
+        var watcher = nativeConsulKVWatcher.getWatcher("key", consulKVClient, ConsulKVWatch.Options.of(new WatcherConfiguration(), WatcherMetrics.NOOP));
 
         // then
-        assertThat(watcher).isExactlyInstanceOf(WatchImpl.KeyPrefix.class);
+        assertThat(watcher).isExactlyInstanceOf(ConsulKVWatch.KeyPrefix.class);
     }
 
     @Test
@@ -81,4 +77,91 @@ class NativeConsulKVWatcherTest {
         // then
         assertThat(properties).containsExactlyEntriesOf(Map.of("key", "value_B"));
     }
+
+    @Test
+    void should_mapNestedKeys_toDottedPropertyPaths() {
+        // given
+        var url = new KeyValue();
+        url.setKey("path/my_application/datasources/default/url");
+        url.setValue("jdbc:h2:mem:db");
+
+        var otherUrl = new KeyValue();
+        otherUrl.setKey("path/my_application/datasources/other/url");
+        otherUrl.setValue("jdbc:h2:mem:other");
+
+        var folder = new KeyValue();
+        folder.setKey("path/my_application/datasources/");
+
+        var otherApplication = new KeyValue();
+        otherApplication.setKey("path/my_application_2/datasources/default/url");
+        otherApplication.setValue("jdbc:h2:mem:app2");
+
+        var keyValueList = new KeyValueList();
+        keyValueList.setList(List.of(url, otherUrl, folder, otherApplication));
+
+        // when
+        var properties = nativeConsulKVWatcher.toProperties("path/my_application", keyValueList);
+
+        // then
+        assertThat(properties).containsOnly(
+                Map.entry("datasources.default.url", "jdbc:h2:mem:db"),
+                Map.entry("datasources.other.url", "jdbc:h2:mem:other"));
+    }
+
+    @Test
+    void should_findTheOwner_amongTheWatchedKeys() {
+        // given
+        nativeConsulKVWatcher.onWatchedKeys(List.of("path/my_application", "path/my_application,my_profile", "path/my_application/tenant"));
+
+        // then
+        assertThat(nativeConsulKVWatcher.findOwner("path/my_application/key")).isEqualTo("path/my_application");
+        assertThat(nativeConsulKVWatcher.findOwner("path/my_application,my_profile/key")).isEqualTo("path/my_application,my_profile");
+        assertThat(nativeConsulKVWatcher.findOwner("path/my_application/tenant/key")).isEqualTo("path/my_application/tenant");
+        assertThat(nativeConsulKVWatcher.findOwner("path/other_application/key")).isNull();
+    }
+
+    @Test
+    void should_extract_theKVOfTheKey() {
+        // given
+        var keyValueA = new KeyValue();
+        keyValueA.setKey("path/my_application/key");
+        keyValueA.setValue("value_A");
+
+        // when
+        var extracted = nativeConsulKVWatcher.extract("path/my_application", List.of(keyValueA), 12);
+        var missing = nativeConsulKVWatcher.extract("path/my_application", null, 12);
+
+        // then
+        assertThat(extracted).isNotNull();
+        assertThat(extracted.getIndex()).isEqualTo(12);
+        assertThat(extracted.getList()).containsExactly(keyValueA);
+        assertThat(missing).isNotNull();
+        assertThat(missing.isPresent()).isFalse();
+        assertThat(missing.getIndex()).isEqualTo(12);
+    }
+
+    @Test
+    void should_hash_onlyTheKVOfTheKey() {
+        // given
+        var keyValueA = new KeyValue();
+        keyValueA.setKey("path/my_application/key");
+        keyValueA.setValue("value_A");
+
+        var keyValueB = new KeyValue();
+        keyValueB.setKey("path/my_application,my_profile/key");
+        keyValueB.setValue("value_B");
+
+        var withOtherProfile = new KeyValueList();
+        withOtherProfile.setList(List.of(keyValueA, keyValueB));
+
+        var withoutOtherProfile = new KeyValueList();
+        withoutOtherProfile.setList(List.of(keyValueA));
+
+        // when
+        var hash = nativeConsulKVWatcher.hash("path/my_application", withOtherProfile);
+
+        // then
+        assertThat(hash).isEqualTo(nativeConsulKVWatcher.hash("path/my_application", withoutOtherProfile));
+        assertThat(hash).isNotEqualTo(nativeConsulKVWatcher.hash("path/my_application", null));
+    }
 }
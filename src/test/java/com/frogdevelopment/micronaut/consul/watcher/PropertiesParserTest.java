@@ -0,0 +1,122 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class PropertiesParserTest {
+
+    @Test
+    void should_return_emptyMap_when_emptyContent() {
+        // when
+        var properties = PropertiesParser.parse("");
+
+        // then
+        assertThat(properties).isEmpty();
+    }
+
+    @Test
+    void should_skipComments_and_blankLines() {
+        // given
+        var content = """
+                # comment
+                ! other comment
+
+                   key = value
+                """;
+
+        // when
+        var properties = PropertiesParser.parse(content);
+
+        // then
+        assertThat(properties).containsExactly(Map.entry("key", "value"));
+    }
+
+    @Test
+    void should_handleAllSeparators() {
+        // given
+        var content = "a=1\nb:2\nc 3\nd = = 4\ne\t:  5\nf\n";
+
+        // when
+        var properties = PropertiesParser.parse(content);
+
+        // then
+        assertThat(properties).containsExactly(
+                Map.entry("a", "1"),
+                Map.entry("b", "2"),
+                Map.entry("c", "3"),
+                Map.entry("d", "= 4"),
+                Map.entry("e", "5"),
+                Map.entry("f", ""));
+    }
+
+    @Test
+    void should_joinContinuationLines() {
+        // given
+        var content = "hosts = a,\\\n        b,\\\r\n   c\nnext=value";
+
+        // when
+        var properties = PropertiesParser.parse(content);
+
+        // then
+        assertThat(properties).containsExactly(
+                Map.entry("hosts", "a,b,c"),
+                Map.entry("next", "value"));
+    }
+
+    @Test
+    void should_unescapeCharacters() {
+        // given
+        var content = "my\\ key\\=name = tab\\there\\nnew line \\u00e9\\\\";
+
+        // when
+        var properties = PropertiesParser.parse(content);
+
+        // then
+        assertThat(properties).containsExactly(Map.entry("my key=name", "tab\there\nnew line é\\"));
+    }
+
+    @Test
+    void should_keepLastDefinition() {
+        // when
+        var properties = PropertiesParser.parse("key=first\nkey=second");
+
+        // then
+        assertThat(properties).containsExactly(Map.entry("key", "second"));
+    }
+
+    @Test
+    void should_throw_when_malformedUnicode() {
+        // when
+        assertThatThrownBy(() -> PropertiesParser.parse("key=\\u00zz"))
+                // then
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed \\uxxxx encoding.");
+    }
+
+    @Test
+    void should_parseLike_javaUtilProperties() throws Exception {
+        // given
+        var content = """
+                # sample
+                micronaut.application.name = my-app
+                datasources.default.url:jdbc:h2:mem:db;MODE=PostgreSQL
+                message   Hello\\tWorld \\
+                          from \\u0043onsul
+                path=C:\\\\temp\\\\
+                """;
+        var expected = new Properties();
+        expected.load(new StringReader(content));
+
+        // when
+        var properties = PropertiesParser.parse(content);
+
+        // then
+        assertThat(properties).containsExactlyInAnyOrderEntriesOf(Map.copyOf(expected));
+    }
+}
@@ -0,0 +1,176 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Maps;
+
+class PropertySnapshotTest {
+
+    @Test
+    void should_behaveAsTheCopiedMap() {
+        // given
+        final var properties = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 1_000; i++) {
+            properties.put("section" + (i % 10) + ".key" + i, "value_" + i);
+        }
+        properties.put("nullable", null);
+
+        // when
+        final var snapshot = PropertySnapshot.of(properties);
+
+        // then
+        assertThat(snapshot).isEqualTo(properties);
+        assertThat(snapshot).hasSameHashCodeAs(properties);
+        assertThat(snapshot).hasSize(1_001);
+        assertThat(snapshot.get("section3.key513")).isEqualTo("value_513");
+        assertThat(snapshot.containsKey("nullable")).isTrue();
+        assertThat(snapshot.get("nullable")).isNull();
+        assertThat(snapshot.containsKey("unknown")).isFalse();
+        assertThat(snapshot.getOrDefault("unknown", "default")).isEqualTo("default");
+        assertThat(snapshot.get(42)).isNull();
+        assertThat(snapshot.keySet()).containsExactlyInAnyOrderElementsOf(properties.keySet());
+    }
+
+    @Test
+    void should_beImmutable() {
+        // given
+        final var snapshot = PropertySnapshot.of(Map.of("key", "value"));
+
+        // then
+        assertThatThrownBy(() -> snapshot.put("other", "value")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.remove("key")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(snapshot::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.entrySet().iterator().next().setValue("other")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void should_shareTheUnchangedEntries_with_thePreviousVersion() {
+        // given
+        final var previous = PropertySnapshot.of(Map.of("unchanged", List.of("a", "b"), "changed", "before"));
+        final var next = new HashMap<String, Object>();
+        next.put(new String("unchanged"), List.of("a", "b"));
+        next.put("changed", "after");
+        next.put("added", "value");
+
+        // when
+        final var snapshot = PropertySnapshot.of(next, previous);
+
+        // then
+        assertThat(snapshot).isEqualTo(next);
+        assertThat(snapshot.get("unchanged")).isSameAs(previous.get("unchanged"));
+        assertThat(snapshot.keySet()).anySatisfy(key -> assertThat(key).isSameAs(previous.keySet().stream()
+                .filter("unchanged"::equals)
+                .findFirst()
+                .orElseThrow()));
+        assertThat(snapshot.get("changed")).isEqualTo("after");
+    }
+
+    @Test
+    void should_internTheKeys() {
+        // when
+        final var first = PropertySnapshot.of(Map.of(new String("shared.key"), 1));
+        final var second = PropertySnapshot.of(Map.of(new String("shared.key"), 2));
+
+        // then
+        assertThat(first.keySet().iterator().next()).isSameAs(second.keySet().iterator().next());
+    }
+
+    @Test
+    void should_returnTheSameInstance_when_alreadyASnapshot() {
+        // given
+        final var snapshot = PropertySnapshot.of(Map.of("key", "value"));
+
+        // then
+        assertThat(PropertySnapshot.of(snapshot)).isSameAs(snapshot);
+        assertThat(PropertySnapshot.of(Map.of())).isSameAs(PropertySnapshot.EMPTY);
+    }
+
+    @Test
+    void should_handleTheKeys_withTheSameHash() {
+        // given "Aa" and "BB" have the same hash
+        final var previous = PropertySnapshot.of(Map.of("Aa", 1, "BB", 2, "other", 3));
+        final var next = new HashMap<String, Object>(Map.of("Aa", 1, "BB", 4, "AaAa", 5));
+
+        // when
+        final var snapshot = PropertySnapshot.of(next, previous);
+
+        // then
+        assertThat(snapshot).isEqualTo(next);
+        assertThat(PropertySnapshot.difference(previous, snapshot)).isEqualTo(Maps.difference(previous, next));
+    }
+
+    @Test
+    void should_returnThePreviousVersion_when_unchanged() {
+        // given
+        final var properties = properties(500);
+        final var previous = PropertySnapshot.of(properties);
+
+        // when
+        final var snapshot = PropertySnapshot.of(new HashMap<>(properties), previous);
+
+        // then
+        assertThat(snapshot).isSameAs(previous);
+        assertThat(PropertySnapshot.difference(previous, snapshot).areEqual()).isTrue();
+    }
+
+    @Test
+    void should_diffTheChangedEntries_as_Guava() {
+        // given
+        final var properties = properties(5_000);
+        final var previous = PropertySnapshot.of(properties);
+        final var next = new HashMap<>(properties);
+        next.put("section1.key1", "changed");
+        next.remove("section2.key2");
+        next.put("added", "value");
+
+        // when
+        final var snapshot = PropertySnapshot.of(next, previous);
+        final var difference = PropertySnapshot.difference(previous, snapshot);
+
+        // then
+        assertThat(snapshot).isEqualTo(next);
+        assertThat(difference).isEqualTo(Maps.difference(properties, next));
+        assertThat(difference.entriesOnlyOnLeft()).containsOnlyKeys("section2.key2");
+        assertThat(difference.entriesOnlyOnRight()).containsOnlyKeys("added");
+        assertThat(difference.entriesDiffering()).containsOnlyKeys("section1.key1");
+        assertThat(difference.entriesInCommon()).hasSize(4_998);
+    }
+
+    @Test
+    void should_diffAsGuava_acrossSuccessiveVersions() {
+        // given
+        var properties = properties(2_000);
+        var snapshot = PropertySnapshot.of(properties);
+
+        for (int version = 1; version <= 50; version++) {
+            // when removing most of the keys, then adding them back
+            final var next = new HashMap<>(properties(2_000));
+            final var removed = version < 25 ? version * 80 : (50 - version) * 80;
+            next.keySet().removeIf(key -> Math.floorMod(key.hashCode(), 2_000) < removed);
+            next.put("section0.key0", "version_" + version);
+            final var nextSnapshot = PropertySnapshot.of(next, snapshot);
+
+            // then
+            assertThat(nextSnapshot).isEqualTo(next);
+            assertThat(PropertySnapshot.difference(snapshot, nextSnapshot)).isEqualTo(Maps.difference(properties, next));
+            properties = next;
+            snapshot = nextSnapshot;
+        }
+    }
+
+    private static Map<String, Object> properties(final int size) {
+        final var properties = new HashMap<String, Object>();
+        for (int i = 0; i < size; i++) {
+            properties.put("section" + (i % 10) + ".key" + i, "value_" + i);
+        }
+        return properties;
+    }
+}
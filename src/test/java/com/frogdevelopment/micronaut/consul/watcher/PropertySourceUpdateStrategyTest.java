@@ -0,0 +1,145 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+
+@ExtendWith(MockitoExtension.class)
+class PropertySourceUpdateStrategyTest {
+
+    @Mock
+    Environment environment;
+    @Captor
+    ArgumentCaptor<PropertySource> propertySourceArgumentCaptor;
+
+    private final PropertySource lowerPrecedence = PropertySource.of("lower", Map.of("key_1", "lower"), 10);
+    private final PropertySource consulSource = PropertySource.of("consul-application", Map.of("key_1", "value_1"), 50);
+    private final PropertySource shadowing = PropertySource.of("shadowing", Map.of("key_1", "shadowing"), 90);
+    private final PropertySource notShadowing = PropertySource.of("not-shadowing", Map.of("key_2", "not-shadowing"), 99);
+
+    @BeforeEach
+    void setUp() {
+        // overridden by the tests needing more layers
+        lenient().when(environment.getPropertySources()).thenReturn(List.of(notShadowing, shadowing, consulSource, lowerPrecedence));
+    }
+
+    @Test
+    void should_reAddAllSources_sortedByOrder_when_rebuilding() {
+        // when
+        PropertySourceUpdateStrategy.REBUILD.update(environment, "consul-application", Map.of("key_1", "value_2"), Set.of("key_1"));
+
+        // then
+        then(environment).should(times(4)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .extracting(PropertySource::getName)
+                .containsExactly("lower", "consul-application", "shadowing", "not-shadowing");
+        assertThat(propertySourceArgumentCaptor.getAllValues().get(1).get("key_1")).isEqualTo("value_2");
+    }
+
+    @Test
+    void should_replaceOnlyTheUpdatedSource_and_reApplyTheShadowingOnes_when_patching() {
+        // when
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-application", Map.of("key_1", "value_2"), Set.of("key_1"));
+
+        // then
+        then(environment).should(times(2)).addPropertySource(propertySourceArgumentCaptor.capture());
+        var propertySources = propertySourceArgumentCaptor.getAllValues();
+        assertThat(propertySources)
+                .extracting(PropertySource::getName)
+                .containsExactly("consul-application", "shadowing");
+        assertThat(propertySources.get(0).get("key_1")).isEqualTo("value_2");
+        assertThat(propertySources.get(0).getOrder()).isEqualTo(50);
+    }
+
+    @Test
+    void should_doNothing_when_patchingAnUnknownSource() {
+        // when
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-unknown", Map.of("key_1", "value_2"), Set.of("key_1"));
+
+        // then
+        then(environment).should().getPropertySources();
+        then(environment).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void should_reApplyTheSources_shadowingAnUnchangedKey_and_theSourcesAboveThem_when_patching() {
+        // given
+        var consul = PropertySource.of("consul-application", Map.of("key_a", "consul_a", "key_b", "consul_b"), 50);
+        var middle = PropertySource.of("middle", Map.of("key_b", "middle_b", "key_c", "middle_c"), 70);
+        var top = PropertySource.of("top", Map.of("key_c", "top_c"), 90);
+        var unrelated = PropertySource.of("unrelated", Map.of("key_d", "unrelated_d"), 95);
+        given(environment.getPropertySources()).willReturn(List.of(unrelated, top, middle, consul));
+
+        // when only key_a changed
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-application",
+                Map.of("key_a", "changed_a", "key_b", "consul_b"), Set.of("key_a"));
+
+        // then key_b is shadowed by middle, whose key_c is in turn shadowed by top
+        then(environment).should(times(3)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .extracting(PropertySource::getName)
+                .containsExactly("consul-application", "middle", "top");
+    }
+
+    @Test
+    void should_reApplyTheSources_definingARemovedKey_when_patching() {
+        // when key_1 is removed
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-application", Map.of(), Set.of("key_1"));
+
+        // then
+        then(environment).should(times(3)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .extracting(PropertySource::getName)
+                .containsExactly("lower", "consul-application", "shadowing");
+    }
+
+    @Test
+    void should_reApplyTheLowerSources_definingARemovedKey_when_patching() {
+        // given
+        given(environment.getPropertySources()).willReturn(List.of(notShadowing, consulSource, lowerPrecedence));
+
+        // when key_1 is removed
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-application", Map.of(), Set.of("key_1"));
+
+        // then key_1 gets back the value of the lower source
+        then(environment).should(times(2)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .extracting(PropertySource::getName)
+                .containsExactly("lower", "consul-application");
+    }
+
+    @Test
+    void should_reApplyTheSources_overwrittenByARemovedKeyLowerSource_when_patching() {
+        // given
+        var application = PropertySource.of("application", Map.of("key_1", "application_1", "key_2", "application_2"), 10);
+        var lowerConsul = PropertySource.of("consul-shared", Map.of("key_2", "shared_2"), 40);
+        var higher = PropertySource.of("higher", Map.of("key_2", "higher_2"), 90);
+        given(environment.getPropertySources()).willReturn(List.of(higher, consulSource, lowerConsul, application));
+
+        // when key_1 is removed
+        PropertySourceUpdateStrategy.PATCH.update(environment, "consul-application", Map.of(), Set.of("key_1"));
+
+        // then re-applying application overwrote key_2, so are re-applied the sources above it defining key_2
+        then(environment).should(times(4)).addPropertySource(propertySourceArgumentCaptor.capture());
+        assertThat(propertySourceArgumentCaptor.getAllValues())
+                .extracting(PropertySource::getName)
+                .containsExactly("application", "consul-shared", "consul-application", "higher");
+    }
+}
@@ -0,0 +1,136 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.config.ConfigurationClient;
+import io.micronaut.discovery.consul.config.ConsulConfigurationClient;
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotConfigurationClientTest {
+
+    @TempDir
+    Path tempDir;
+    @Mock
+    Environment environment;
+    @Mock
+    ConfigurationClient consulConfigurationClient;
+
+    private Path snapshotPath;
+    private SnapshotConfigurationClient snapshotConfigurationClient;
+
+    @BeforeEach
+    void beforeEach() {
+        snapshotPath = tempDir.resolve("snapshot.json");
+        new SnapshotStore(snapshotPath).put("config/application",
+                new SnapshotStore.Entry("consul-application", 66, 12, Map.of("key_a", "snapshot_a", "key_b", "snapshot_b")));
+        snapshotConfigurationClient = new SnapshotConfigurationClient(consulConfigurationClient, snapshotPath, Duration.ofMillis(200));
+    }
+
+    @Test
+    void should_bootFromTheSnapshot_when_consulIsUnreachable() {
+        // given
+        given(consulConfigurationClient.getPropertySources(environment))
+                .willReturn(Flux.error(new ConfigurationException("Error reading distributed configuration from Consul")));
+
+        // when
+        var propertySources = getPropertySources();
+
+        // then
+        assertThat(propertySources).singleElement().satisfies(propertySource -> {
+            assertThat(propertySource.getName()).isEqualTo("consul-application");
+            assertThat(propertySource.getOrder()).isEqualTo(66);
+            assertThat(propertySource.get("key_a")).isEqualTo("snapshot_a");
+            assertThat(propertySource.get("key_b")).isEqualTo("snapshot_b");
+        });
+    }
+
+    @Test
+    void should_bootFromTheSnapshot_when_consulIsSlow() {
+        // given
+        given(consulConfigurationClient.getPropertySources(environment)).willReturn(Flux.never());
+
+        // when
+        var propertySources = getPropertySources();
+
+        // then
+        assertThat(propertySources).extracting(propertySource -> propertySource.get("key_a")).containsExactly("snapshot_a");
+    }
+
+    @Test
+    void should_bootFromTheSnapshot_when_consulFailsSynchronously() {
+        // given
+        given(consulConfigurationClient.getPropertySources(environment)).willThrow(new ConfigurationException("For test purpose"));
+
+        // when
+        var propertySources = getPropertySources();
+
+        // then
+        assertThat(propertySources).extracting(PropertySource::getName).containsExactly("consul-application");
+    }
+
+    @Test
+    void should_bootFromConsul_only_when_available() {
+        // given
+        given(consulConfigurationClient.getPropertySources(environment)).willReturn(Flux.just(
+                PropertySource.of("consul-application", Map.of("key_a", "consul_a"), 66),
+                PropertySource.of("consul-my_app", Map.of("key_c", "consul_c"), 67)));
+
+        // when
+        var propertySources = getPropertySources();
+
+        // then
+        assertThat(propertySources).extracting(PropertySource::getName).containsExactly("consul-application", "consul-my_app");
+        assertThat(propertySources.get(0).get("key_a")).isEqualTo("consul_a");
+        assertThat(propertySources.get(0).get("key_b")).isNull();
+    }
+
+    @Test
+    void should_failAsConsul_when_noSnapshot() {
+        // given
+        var withoutSnapshot = new SnapshotConfigurationClient(consulConfigurationClient, tempDir.resolve("missing.json"), Duration.ofMillis(200));
+        given(consulConfigurationClient.getPropertySources(environment)).willReturn(Flux.error(new ConfigurationException("For test purpose")));
+
+        // then
+        assertThatThrownBy(() -> Flux.from(withoutSnapshot.getPropertySources(environment)).collectList().block())
+                .isInstanceOf(ConfigurationException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_decorate_theConsulClient_only() {
+        // given
+        var decorator = new SnapshotConfigurationClientDecorator(snapshotPath.toString(), Duration.ofSeconds(2));
+        var consulEvent = (BeanCreatedEvent<ConfigurationClient>) mock(BeanCreatedEvent.class);
+        given(consulEvent.getBean()).willReturn(mock(ConsulConfigurationClient.class));
+        var otherEvent = (BeanCreatedEvent<ConfigurationClient>) mock(BeanCreatedEvent.class);
+        given(otherEvent.getBean()).willReturn(consulConfigurationClient);
+
+        // then
+        assertThat(decorator.onCreated(consulEvent)).isInstanceOf(SnapshotConfigurationClient.class);
+        assertThat(decorator.onCreated(otherEvent)).isSameAs(consulConfigurationClient);
+    }
+
+    private List<PropertySource> getPropertySources() {
+        return Flux.from(snapshotConfigurationClient.getPropertySources(environment)).collectList().block(Duration.ofSeconds(5));
+    }
+}
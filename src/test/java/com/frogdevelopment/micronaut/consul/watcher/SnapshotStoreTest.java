@@ -0,0 +1,87 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void should_readTheSavedEntries() {
+        // given
+        var path = tempDir.resolve("snapshot/consul.json");
+        var store = new SnapshotStore(path);
+
+        // when
+        store.put("config/application", new SnapshotStore.Entry("consul-application", 66, 12,
+                Map.of("key_a", "value_a", "key_int", 1, "key_list", List.of("a", "b"))));
+        store.put("config/my_app", new SnapshotStore.Entry("consul-my_app", 99, 15, Map.of("key_b", true)));
+        store.remove("config/my_app");
+
+        // then
+        assertThat(SnapshotStore.read(path))
+                .containsOnlyKeys("config/application")
+                .containsEntry("config/application", new SnapshotStore.Entry("consul-application", 66, 12,
+                        Map.of("key_a", "value_a", "key_int", 1, "key_list", List.of("a", "b"))));
+        assertThat(tempDir.resolve("snapshot/consul.json.tmp")).doesNotExist();
+    }
+
+    @Test
+    void should_keepTheEntriesOfThePreviousRun() {
+        // given
+        var path = tempDir.resolve("consul.json");
+        new SnapshotStore(path).put("config/application", new SnapshotStore.Entry("consul-application", 66, 12, Map.of("key_a", "value_a")));
+
+        // when
+        var store = new SnapshotStore(path);
+
+        // then
+        assertThat(store.get("config/application")).hasValueSatisfying(entry -> assertThat(entry.index()).isEqualTo(12));
+    }
+
+    @Test
+    void should_returnNoEntry_when_noSnapshot() {
+        assertThat(SnapshotStore.read(tempDir.resolve("missing.json"))).isEmpty();
+    }
+
+    @Test
+    void should_returnNoEntry_when_corruptedSnapshot() throws IOException {
+        // given
+        var path = tempDir.resolve("consul.json");
+        Files.writeString(path, "{\"version\":1,\"keys\":{\"config/appli");
+
+        // when
+        var entries = SnapshotStore.read(path);
+
+        // then
+        assertThat(entries).isEmpty();
+    }
+
+    @Test
+    void should_keepTheSnapshotWritable_when_aValueCanNotBeEncoded() {
+        // given
+        var path = tempDir.resolve("consul.json");
+        var store = new SnapshotStore(path);
+        store.put("config/application", new SnapshotStore.Entry("consul-application", 66, 12, Map.of("key_a", "value_a")));
+
+        // when
+        store.put("config/application", new SnapshotStore.Entry("consul-application", 66, 13, Map.of("key_a", new Object())));
+        store.put("config/my_app", new SnapshotStore.Entry("consul-my_app", 99, 15, Map.of("key_b", true)));
+
+        // then the previous content of the key is kept
+        assertThat(SnapshotStore.read(path))
+                .containsOnlyKeys("config/application", "config/my_app")
+                .containsEntry("config/application", new SnapshotStore.Entry("consul-application", 66, 12, Map.of("key_a", "value_a")));
+        assertThat(store.get("config/application")).hasValueSatisfying(entry -> assertThat(entry.index()).isEqualTo(12));
+    }
+}
@@ -12,6 +12,13 @@ import com.frogdevelopment.micronaut.consul.ConsulTestHelper;
 @Factory
 public class TestFactory {
 
+    // as provided by the application, reused by the watcher
+    @Singleton
+    @Bean(preDestroy = "close")
+    Vertx vertx() {
+        return Vertx.vertx();
+    }
+
     @Singleton
     @Bean(preDestroy = "close")
     ConsulClient consulClient(final Vertx vertx) {
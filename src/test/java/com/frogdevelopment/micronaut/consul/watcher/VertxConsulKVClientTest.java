@@ -0,0 +1,128 @@
+package com.frogdevelopment.micronaut.consul.watcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.ext.consul.BlockingQueryOptions;
+import io.vertx.ext.consul.ConsistencyMode;
+import io.vertx.ext.consul.ConsulClientOptions;
+
+class VertxConsulKVClientTest extends BaseConsulKVClientTest {
+
+    @Override
+    protected ConsulKVClient newClient(final ConsulClientOptions consulClientOptions) {
+        return new VertxConsulKVClient(vertx, consulClientOptions);
+    }
+
+    @Test
+    void should_resolveVertx_onFirstUse_only() throws Exception {
+        // given
+        final var resolutions = new AtomicInteger();
+        final var lazyClient = new VertxConsulKVClient(() -> {
+            resolutions.incrementAndGet();
+            return vertx;
+        }, false, new ConsulClientOptions().setHost("localhost").setPort(server.actualPort()));
+        assertThat(lazyClient.isInitialized()).isFalse();
+        assertThat(lazyClient.cancelTimer(1)).isFalse();
+
+        // when
+        lazyClient.getValue("config/app", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        lazyClient.getValue("config/app", new BlockingQueryOptions(), ConsistencyMode.DEFAULT)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(lazyClient.isInitialized()).isTrue();
+        assertThat(resolutions).hasValue(1);
+
+        // when
+        lazyClient.close();
+
+        // then the shared instance is still usable
+        assertThat(vertx.setTimer(1, id -> {})).isNotNegative();
+    }
+
+    @Test
+    void should_closeTheOwnedVertx() throws Exception {
+        // given
+        final var owned = Vertx.vertx();
+        final var closed = new CountDownLatch(1);
+        ((VertxInternal) owned).addCloseHook(completion -> {
+            closed.countDown();
+            completion.complete();
+        });
+        final var ownedClient = new VertxConsulKVClient(() -> owned, true, new ConsulClientOptions());
+        ownedClient.setTimer(60_000, id -> {});
+
+        // when
+        ownedClient.close();
+
+        // then
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void should_notCreateVertx_when_closedBeforeUse() {
+        // given
+        final var lazyClient = new VertxConsulKVClient(() -> {
+            throw new AssertionError("should not be called");
+        }, true, new ConsulClientOptions());
+
+        // when
+        lazyClient.close();
+
+        // then
+        assertThat(lazyClient.isInitialized()).isFalse();
+        assertThatThrownBy(() -> lazyClient.setTimer(1, id -> {})).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void should_growThePool_when_moreWatchesThanConnections() throws Exception {
+        // given a server holding the queries, as Consul does with the blocking ones
+        final List<HttpServerRequest> pending = new CopyOnWriteArrayList<>();
+        final var holdingServer = vertx.createHttpServer()
+                .requestHandler(pending::add)
+                .listen(0)
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        final var client = new VertxConsulKVClient(vertx, new ConsulClientOptions()
+                .setHost("localhost")
+                .setPort(holdingServer.actualPort())
+                .setMaxPoolSize(1));
+        final var first = client.getValue("config/first", new BlockingQueryOptions(), ConsistencyMode.DEFAULT);
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> pending.size() == 1);
+
+        try {
+            // when
+            client.reserveConnections(3);
+            final var second = client.getValue("config/second", new BlockingQueryOptions(), ConsistencyMode.DEFAULT);
+            final var third = client.getValue("config/third", new BlockingQueryOptions(), ConsistencyMode.DEFAULT);
+
+            // then all the queries are pending at the same time
+            assertThat(client.getPoolSize()).isEqualTo(3);
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> pending.size() == 3);
+
+            // when
+            pending.forEach(request -> request.response().setStatusCode(404).end());
+
+            // then
+            for (final var query : List.of(first, second, third)) {
+                assertThat(query.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS).index()).isZero();
+            }
+        } finally {
+            client.close();
+            holdingServer.close();
+        }
+    }
+}
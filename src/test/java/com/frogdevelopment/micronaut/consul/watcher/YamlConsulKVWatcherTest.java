@@ -1,37 +1,49 @@
 package com.frogdevelopment.micronaut.consul.watcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 
 import java.util.Map;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.yaml.snakeyaml.error.YAMLException;
 
-import io.vertx.core.Vertx;
-import io.vertx.ext.consul.ConsulClientOptions;
 import io.vertx.ext.consul.KeyValue;
-import io.vertx.ext.consul.impl.WatchImpl;
 
 @ExtendWith(MockitoExtension.class)
 class YamlConsulKVWatcherTest {
 
-    @InjectMocks
     private YamlConsulKVWatcher yamlConsulKVWatcher;
 
     @Mock
-    private Vertx vertx;
-    private final ConsulClientOptions consulClientOptions = new ConsulClientOptions();
+    private ConsulKVClient consulKVClient;
+    @Mock
+    private WatcherMetrics watcherMetrics;
+
+    private final WatcherConfiguration watcherConfiguration = new WatcherConfiguration();
+
+    @BeforeEach
+    void beforeEach() {
+        watcherConfiguration.setMaxDocumentSize(1024);
+        watcherConfiguration.setMaxYamlAliases(5);
+        watcherConfiguration.setMaxYamlNestingDepth(5);
+        yamlConsulKVWatcher = new YamlConsulKVWatcher(null, null, null, watcherConfiguration, watcherMetrics, consulKVClient,
+                Runnable::run);
+    }
 
     @Test
     void should_return_KeyWatcher() {
         // when
-        var watcher = yamlConsulKVWatcher.getWatcher("key", vertx, consulClientOptions);
+        var watcher = yamlConsulKVWatcher.getWatcher("key", consulKVClient, ConsulKVWatch.Options.of(new WatcherConfiguration(), WatcherMetrics.NOOP));
 
         // then
-        assertThat(watcher).isExactlyInstanceOf(WatchImpl.Key.class);
+        assertThat(watcher).isExactlyInstanceOf(ConsulKVWatch.Key.class);
     }
 
     @Test
@@ -69,4 +81,103 @@ class YamlConsulKVWatcherTest {
         assertThat(properties).containsExactlyEntriesOf(Map.of("key", "value_B"));
     }
 
+    @Test
+    void should_return_flattenedProperties_when_nestedDocument() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("datasources:\n  default:\n    url: jdbc:h2:mem:db\n    maximum-pool-size: 10\n");
+
+        // when
+        var properties = yamlConsulKVWatcher.toProperties("path/my_application", keyValue);
+
+        // then
+        assertThat(properties).containsOnly(
+                Map.entry("datasources.default.url", "jdbc:h2:mem:db"),
+                Map.entry("datasources.default.maximum-pool-size", 10));
+    }
+
+    @Test
+    void should_return_emptyMap_when_emptyDocument() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("");
+
+        // when
+        var properties = yamlConsulKVWatcher.toProperties("path/my_application", keyValue);
+
+        // then
+        assertThat(properties).isEmpty();
+    }
+
+    @Test
+    void should_reject_when_documentTooBig() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("key: " + "a".repeat(1024));
+
+        // when
+        assertThatThrownBy(() -> yamlConsulKVWatcher.toProperties("path/my_application", keyValue))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Document of key [path/my_application] rejected");
+
+        // then
+        then(watcherMetrics).should().documentRejected("path/my_application");
+    }
+
+    @Test
+    void should_reject_when_tooManyAliases() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("""
+                a: &a [x, x]
+                b: &b [*a, *a]
+                c: &c [*b, *b]
+                d: &d [*c, *c]
+                e: [*d, *d]
+                """);
+
+        // when
+        assertThatThrownBy(() -> yamlConsulKVWatcher.toProperties("path/my_application", keyValue))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("aliases");
+
+        // then
+        then(watcherMetrics).should().documentRejected("path/my_application");
+    }
+
+    @Test
+    void should_reject_when_nestedTooDeep() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("a: [[[[[[[x]]]]]]]");
+
+        // when
+        assertThatThrownBy(() -> yamlConsulKVWatcher.toProperties("path/my_application", keyValue))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Nesting Depth");
+
+        // then
+        then(watcherMetrics).should().documentRejected("path/my_application");
+    }
+
+    @Test
+    void should_notConstructCustomTypes() {
+        // given
+        KeyValue keyValue = new KeyValue();
+        keyValue.setKey("path/my_application");
+        keyValue.setValue("key: !!java.io.File /tmp");
+
+        // when
+        assertThatThrownBy(() -> yamlConsulKVWatcher.toProperties("path/my_application", keyValue))
+                .isInstanceOf(YAMLException.class);
+
+        // then
+        then(watcherMetrics).should(never()).documentRejected("path/my_application");
+    }
+
 }